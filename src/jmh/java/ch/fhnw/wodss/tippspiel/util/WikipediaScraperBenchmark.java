@@ -0,0 +1,72 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import ch.fhnw.wodss.tippspiel.dto.ScrapedGameDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the group tables, run with ./gradlew jmh. The gc profiler adds the allocations per operation to the
+ * throughput. The input is a hand-written table of about 10 KB in the layout of the article, not a copy of the real
+ * page, so the numbers compare parser changes but don't tell the parse cost of the live page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WikipediaScraperBenchmark {
+
+    private static final String SNAPSHOT = "/wm2018-snapshot.html";
+
+    private WikipediaScraper scraper;
+    private Elements groups;
+    private Element gameDetails;
+    private Element teamsAndResult;
+    private String date;
+
+    @Setup
+    public void setup() throws IOException {
+        scraper = new WikipediaScraper(null, null, new SimpleMeterRegistry());
+        Document doc;
+        try (InputStream snapshot = WikipediaScraperBenchmark.class.getResourceAsStream(SNAPSHOT)) {
+            doc = Jsoup.parse(snapshot, "UTF-8", "");
+        }
+        groups = doc.select("table.wikitable.zebra.hintergrundfarbe5 > tbody");
+        Element group = groups.first();
+        gameDetails = group.child(0).child(0);
+        teamsAndResult = group.child(1);
+        date = gameDetails.textNodes().get(0).text();
+    }
+
+    @Benchmark
+    public List<ScrapedGameDTO> parseGroupTables() {
+        List<ScrapedGameDTO> games = new ArrayList<>(64);
+        for (int i = 0; i < groups.size(); i++) {
+            scraper.parseGroupTable(groups.get(i), i, games);
+        }
+        return games;
+    }
+
+    @Benchmark
+    public void parseGameInTable(Blackhole blackhole) {
+        blackhole.consume(scraper.parseGameInTable(gameDetails, teamsAndResult, 0));
+    }
+
+    @Benchmark
+    public LocalDateTime parseDateTime() {
+        return scraper.parseDateTime(date);
+    }
+}
@@ -18,10 +18,7 @@ public class TippspielApplication {
         ConfigurableApplicationContext context = SpringApplication.run(TippspielApplication.class, args);
         boolean scrape = Boolean.parseBoolean(context.getEnvironment().getProperty("scraper.onstartup"));
         if(scrape) {
-            WikipediaScraper wikipediaScraper = context.getBean(WikipediaScraper.class);
-            wikipediaScraper.scrapeGroupToSemiFinal();
-            wikipediaScraper.scrapeSmallFinal();
-            wikipediaScraper.scrapeFinal();
+            context.getBean(WikipediaScraper.class).scrape();
         }
     }
 
@@ -0,0 +1,68 @@
+package ch.fhnw.wodss.tippspiel.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the stages a new result passes through, as pipeline.stage tagged with the stage: the import of the scraped
+ * games, the scoring of the game's bets, the bet group totals, the overall and bet group leaderboards and the
+ * result mails. Each stage is started by an event of the previous one.
+ */
+@Aspect
+@Component
+public class PipelineMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public PipelineMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* ch.fhnw.wodss.tippspiel.service.GameImportService.importGames(..))")
+    public Object timeImport(ProceedingJoinPoint jp) throws Throwable {
+        return time("import", jp);
+    }
+
+    @Around("execution(* ch.fhnw.wodss.tippspiel.job.Scorer.onGameResult(..))")
+    public Object timeScoring(ProceedingJoinPoint jp) throws Throwable {
+        return time("score", jp);
+    }
+
+    @Around("execution(* ch.fhnw.wodss.tippspiel.service.BetGroupService.onUserScoresChanged(..))")
+    public Object timeBetGroupTotals(ProceedingJoinPoint jp) throws Throwable {
+        return time("betgrouptotals", jp);
+    }
+
+    @Around("execution(* ch.fhnw.wodss.tippspiel.service.LeaderboardService.onUserScoresChanged(..))")
+    public Object timeLeaderboard(ProceedingJoinPoint jp) throws Throwable {
+        return time("leaderboard", jp);
+    }
+
+    @Around("execution(* ch.fhnw.wodss.tippspiel.service.BetGroupLeaderboardService.onBetGroupsChanged(..))")
+    public Object timeBetGroupLeaderboards(ProceedingJoinPoint jp) throws Throwable {
+        return time("betgroupleaderboards", jp);
+    }
+
+    @Around("execution(* ch.fhnw.wodss.tippspiel.job.Mailer.onUserScoresChanged(..))")
+    public Object timeNotification(ProceedingJoinPoint jp) throws Throwable {
+        return time("notify", jp);
+    }
+
+    private Object time(String stage, ProceedingJoinPoint jp) throws Throwable {
+        Timer timer = meterRegistry.timer("pipeline.stage", "stage", stage);
+        long start = System.nanoTime();
+        try {
+            return jp.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -1,26 +1,32 @@
 package ch.fhnw.wodss.tippspiel.configuration;
 
+import ch.fhnw.wodss.tippspiel.security.LoginThrottle;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 public class RESTAuthenticationFilter extends AbstractAuthenticationProcessingFilter {
+    private static final String USERNAME_ATTRIBUTE = RESTAuthenticationFilter.class.getName() + ".username";
     private final ObjectMapper objectMapper;
+    private final LoginThrottle loginThrottle;
 
-    public RESTAuthenticationFilter(ObjectMapper objectMapper) {
+    public RESTAuthenticationFilter(ObjectMapper objectMapper, LoginThrottle loginThrottle) {
         super(new AntPathRequestMatcher("/login", "POST"));
         this.objectMapper = objectMapper;
+        this.loginThrottle = loginThrottle;
     }
 
     @Override
@@ -31,6 +37,8 @@ public class RESTAuthenticationFilter extends AbstractAuthenticationProcessingFi
         } catch (JsonMappingException | JsonParseException e) {
             throw new AuthenticationServiceException("Invalid login request");
         }
+        loginThrottle.acquire(loginRequestPOJO.getUsername(), request.getRemoteAddr());
+        request.setAttribute(USERNAME_ATTRIBUTE, loginRequestPOJO.getUsername());
 
         UsernamePasswordAuthenticationToken authRequest = new UsernamePasswordAuthenticationToken(
                 loginRequestPOJO.getUsername(), loginRequestPOJO.getPassword());
@@ -39,4 +47,19 @@ public class RESTAuthenticationFilter extends AbstractAuthenticationProcessingFi
         Authentication authentication =  this.getAuthenticationManager().authenticate(authRequest);
         return authentication;
     }
+
+    @Override
+    protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response, FilterChain chain, Authentication authResult) throws IOException, ServletException {
+        loginThrottle.succeeded((String) request.getAttribute(USERNAME_ATTRIBUTE));
+        super.successfulAuthentication(request, response, chain, authResult);
+    }
+
+    @Override
+    protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response, AuthenticationException failed) throws IOException, ServletException {
+        // only a wrong password or unknown user counts against the account, not e.g. a busy hashing pool
+        if (!(failed instanceof BadCredentialsException)) {
+            loginThrottle.released((String) request.getAttribute(USERNAME_ATTRIBUTE));
+        }
+        super.unsuccessfulAuthentication(request, response, failed);
+    }
 }
@@ -0,0 +1,43 @@
+package ch.fhnw.wodss.tippspiel.configuration;
+
+import ch.fhnw.wodss.tippspiel.exception.ServiceBusyException;
+import ch.fhnw.wodss.tippspiel.security.Argon2PasswordEncoder;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Rehashes the password of a successful login if its hash was created with outdated Argon2 parameters, the
+ * presented password is only available at this point.
+ */
+public class UpgradingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpgradingAuthenticationProvider.class);
+
+    private final UserDetailsServiceImpl userDetailsService;
+
+    public UpgradingAuthenticationProvider(UserDetailsServiceImpl userDetailsService) {
+        this.userDetailsService = userDetailsService;
+        setUserDetailsService(userDetailsService);
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (getPasswordEncoder() instanceof Argon2PasswordEncoder && user instanceof UserPrincipal) {
+            Argon2PasswordEncoder encoder = (Argon2PasswordEncoder) getPasswordEncoder();
+            if (encoder.upgradeEncoding(user.getPassword())) {
+                try {
+                    userDetailsService.updatePassword((UserPrincipal) user,
+                            encoder.encode(authentication.getCredentials().toString()));
+                } catch (ServiceBusyException e) {
+                    // the login itself succeeded, the hash is upgraded on a later login
+                    logger.debug("Skipped rehashing the password of " + user.getUsername() + ", the hash pool is busy.");
+                }
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
@@ -1,7 +1,8 @@
 package ch.fhnw.wodss.tippspiel.configuration;
 
-import ch.fhnw.wodss.tippspiel.domain.User;
+import ch.fhnw.wodss.tippspiel.persistance.UserCredentialsView;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,8 +23,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findUserByEmailEquals(username)
+        UserCredentialsView user = userRepository.getCredentialsByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException(errorMessage));
-        return user;
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getName(), user.getPassword(),
+                userRepository.getRoleNames(user.getId()));
+    }
+
+    /**
+     * Replaces the stored hash of an authenticated user, e.g. after the Argon2 parameters have been raised.
+     */
+    @Transactional
+    public void updatePassword(UserPrincipal user, String newPassword) {
+        userRepository.setPassword(user.getId(), newPassword);
     }
 }
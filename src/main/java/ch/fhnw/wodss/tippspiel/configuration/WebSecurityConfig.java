@@ -1,5 +1,6 @@
 package ch.fhnw.wodss.tippspiel.configuration;
 
+import ch.fhnw.wodss.tippspiel.security.LoginThrottle;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -48,6 +49,9 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private ExceptionHandlerFilter exceptionHandlerFilter;
 
+    @Autowired
+    private LoginThrottle loginThrottle;
+
     @Bean
     @Override
     protected AuthenticationManager authenticationManager() throws Exception {
@@ -56,7 +60,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Bean
     public RESTAuthenticationFilter restAuthenticationFilter() {
-        RESTAuthenticationFilter restAuthenticationFilter = new RESTAuthenticationFilter(objectMapper);
+        RESTAuthenticationFilter restAuthenticationFilter = new RESTAuthenticationFilter(objectMapper, loginThrottle);
         restAuthenticationFilter.setAuthenticationManager(authenticationManager);
         restAuthenticationFilter.setAuthenticationSuccessHandler(restAuthenticationSuccessHandler);
         return restAuthenticationFilter;
@@ -64,9 +68,9 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth
-                .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder);
+        UpgradingAuthenticationProvider authenticationProvider = new UpgradingAuthenticationProvider(userDetailsService);
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        auth.authenticationProvider(authenticationProvider);
     }
 
     @Override
@@ -75,7 +79,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                 .antMatchers(HttpMethod.POST, "/users").permitAll()
                 .antMatchers(HttpMethod.PUT, "/users/passwordReset").permitAll()
-                .antMatchers(HttpMethod.GET, "/users/ranking", "/games", "/betgroups").permitAll()
+                .antMatchers(HttpMethod.GET, "/users/ranking", "/ranking", "/ranking/top", "/games", "/betgroups").permitAll()
+                .antMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
                 .and().exceptionHandling().authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
                 .and().csrf().disable() // CSRF protection is done with custom HTTP header (OWASP suggestion)
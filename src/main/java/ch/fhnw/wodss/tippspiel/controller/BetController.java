@@ -1,8 +1,8 @@
 package ch.fhnw.wodss.tippspiel.controller;
 
-import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestBetDTO;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import ch.fhnw.wodss.tippspiel.service.BetService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,13 +27,13 @@ public class BetController {
 
     @GetMapping(value = "/{id}", produces = "application/json")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<BetDTO> getBetById(@AuthenticationPrincipal User user, @PathVariable Long id) {
+    public ResponseEntity<BetDTO> getBetById(@AuthenticationPrincipal UserPrincipal user, @PathVariable Long id) {
         return new ResponseEntity<>(service.getBetById(id, user), HttpStatus.OK);
     }
 
     @PostMapping(produces = "application/json", consumes = "application/json")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<BetDTO> addBet(@AuthenticationPrincipal User user, @Valid @RequestBody RestBetDTO restBetDTO, BindingResult result) {
+    public ResponseEntity<BetDTO> addBet(@AuthenticationPrincipal UserPrincipal user, @Valid @RequestBody RestBetDTO restBetDTO, BindingResult result) {
         if (result.hasErrors()) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
@@ -43,7 +43,7 @@ public class BetController {
 
     @PutMapping(value = "/{id}", produces = "application/json", consumes = "application/json")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<BetDTO> updateBet(@AuthenticationPrincipal User user, @Valid @RequestBody RestBetDTO restBetDTO, @PathVariable Long id, BindingResult result) {
+    public ResponseEntity<BetDTO> updateBet(@AuthenticationPrincipal UserPrincipal user, @Valid @RequestBody RestBetDTO restBetDTO, @PathVariable Long id, BindingResult result) {
         if (result.hasErrors()) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
@@ -53,7 +53,7 @@ public class BetController {
 
     @DeleteMapping(value = "/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<String> deleteBet(@AuthenticationPrincipal User user, @PathVariable Long id) {
+    public ResponseEntity<String> deleteBet(@AuthenticationPrincipal UserPrincipal user, @PathVariable Long id) {
         service.deleteBet(id, user);
         return new ResponseEntity<>("Bet deleted", HttpStatus.OK);
     }
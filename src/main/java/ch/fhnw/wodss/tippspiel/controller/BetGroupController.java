@@ -1,9 +1,12 @@
 package ch.fhnw.wodss.tippspiel.controller;
 
-import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetGroupDTO;
+import ch.fhnw.wodss.tippspiel.dto.BetGroupInviteDTO;
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestBetGroupDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserAllBetGroupDTO;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
+import ch.fhnw.wodss.tippspiel.service.BetGroupLeaderboardService;
 import ch.fhnw.wodss.tippspiel.service.BetGroupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
@@ -22,10 +25,12 @@ import java.util.List;
 public class BetGroupController {
 
     private final BetGroupService service;
+    private final BetGroupLeaderboardService leaderboardService;
 
     @Autowired
-    public BetGroupController(BetGroupService service) {
+    public BetGroupController(BetGroupService service, BetGroupLeaderboardService leaderboardService) {
         this.service = service;
+        this.leaderboardService = leaderboardService;
     }
 
     @GetMapping(produces = "application/json")
@@ -41,6 +46,20 @@ public class BetGroupController {
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/{id}/ranking", produces = "application/json")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getRanking(@PathVariable Long id,
+                                                                @RequestParam(defaultValue = "0") int page,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(leaderboardService.getPage(id, page, size), HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/{id}/invites", produces = "application/json")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<BetGroupInviteDTO> createInvite(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal user) {
+        return new ResponseEntity<>(service.createInvite(id, user), HttpStatus.CREATED);
+    }
+
     @Cacheable(value = "betGroups", key = "#id", unless = "#result.statusCode != 200")
     @GetMapping(value = "/{id}", produces = "application/json")
     @PreAuthorize("hasRole('USER')")
@@ -59,7 +78,7 @@ public class BetGroupController {
 
     @PostMapping(produces = "application/json", consumes = "application/json")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<BetGroupDTO> addBetGroup(@AuthenticationPrincipal User user, @Valid @RequestBody RestBetGroupDTO restBetGroupDTO, BindingResult result) {
+    public ResponseEntity<BetGroupDTO> addBetGroup(@AuthenticationPrincipal UserPrincipal user, @Valid @RequestBody RestBetGroupDTO restBetGroupDTO, BindingResult result) {
         if (result.hasErrors()) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
@@ -1,7 +1,7 @@
 package ch.fhnw.wodss.tippspiel.controller;
 
-import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetGroupDTO;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import ch.fhnw.wodss.tippspiel.service.BetGroupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -24,14 +24,15 @@ public class BetGroupMembershipController {
 
     @PostMapping(value = "/{id}", produces= "application/json", consumes = "text/plain")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<BetGroupDTO> addUserToBetGroup(@PathVariable Long id, @AuthenticationPrincipal User user, @RequestBody(required = false) String password) {
-        BetGroupDTO betGroup = service.addUser(id, password, user);
+    public ResponseEntity<BetGroupDTO> addUserToBetGroup(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal user,
+                                                        @RequestBody(required = false) String password, @RequestParam(required = false) String invite) {
+        BetGroupDTO betGroup = invite != null ? service.addUserWithInvite(id, invite, user) : service.addUser(id, password, user);
         return new ResponseEntity<>(betGroup, HttpStatus.CREATED);
     }
 
     @DeleteMapping(value = "/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<String> removeUserFromBetGroup(@PathVariable Long id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<String> removeUserFromBetGroup(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal user) {
         service.removeUserFromBetGroup(id, user);
         return new ResponseEntity<>("User from bet group removed", HttpStatus.OK);
 
@@ -0,0 +1,47 @@
+package ch.fhnw.wodss.tippspiel.controller;
+
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+import ch.fhnw.wodss.tippspiel.service.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/ranking")
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    @Autowired
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    @GetMapping(produces = "application/json")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getPage(@RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(leaderboardService.getPage(page, size), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/top", produces = "application/json")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getTop(@RequestParam(defaultValue = "10") int limit) {
+        return new ResponseEntity<>(leaderboardService.getTop(limit), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/users/{id}", produces = "application/json")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<LeaderboardEntryDTO> getRank(@PathVariable Long id) {
+        return new ResponseEntity<>(leaderboardService.getRank(id), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/users/{id}/neighbours", produces = "application/json")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getNeighbours(@PathVariable Long id,
+                                                                   @RequestParam(defaultValue = "5") int range) {
+        return new ResponseEntity<>(leaderboardService.getNeighbours(id, range), HttpStatus.OK);
+    }
+}
@@ -1,7 +1,7 @@
 package ch.fhnw.wodss.tippspiel.controller;
 
-import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetDTO;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import ch.fhnw.wodss.tippspiel.service.BetService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -28,7 +28,7 @@ public class UserBetsController {
 
     @GetMapping(produces = "application/json")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<BetDTO>> getBetsForUser(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<BetDTO>> getBetsForUser(@AuthenticationPrincipal UserPrincipal user) {
         return new ResponseEntity<>(betService.getBetsForUser(user), HttpStatus.OK);
     }
 }
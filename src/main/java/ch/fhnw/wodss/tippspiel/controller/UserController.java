@@ -1,9 +1,9 @@
 package ch.fhnw.wodss.tippspiel.controller;
 
-import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.RestUserDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import ch.fhnw.wodss.tippspiel.service.BetService;
 import ch.fhnw.wodss.tippspiel.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -75,7 +75,7 @@ public class UserController {
 
     @PutMapping(value = "/{id}", consumes = "application/json", produces = "application/json")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<UserDTO> updateUser(@PathVariable Long id, @Valid @RequestBody RestUserDTO restUserDTO, @AuthenticationPrincipal User user, BindingResult result) {
+    public ResponseEntity<UserDTO> updateUser(@PathVariable Long id, @Valid @RequestBody RestUserDTO restUserDTO, @AuthenticationPrincipal UserPrincipal user, BindingResult result) {
         if (result.hasErrors()) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
@@ -87,7 +87,7 @@ public class UserController {
     @CacheEvict(value = "users", key = "#id")
     @DeleteMapping(value = "/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<String> deleteUser(@PathVariable Long id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<String> deleteUser(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal user) {
         service.deleteUser(id, user);
         return new ResponseEntity<>(HttpStatus.OK);
     }
@@ -29,11 +29,25 @@ public class BetGroup {
     @Size(min = 10, max = 300)
     private String password;
 
-    @Column
+    /**
+     * Average of the members' total scores, derived from the running sum and the member count when loaded.
+     */
+    @Transient
     @Min(0)
     @Max(Integer.MAX_VALUE)
     private Integer score;
 
+    /**
+     * Running sum of the members' total scores. Like the member count it is only changed by atomic updates of
+     * the BetGroupRepository, so saving a group can't overwrite a concurrent change.
+     */
+    @Column(updatable = false)
+    private int scoreSum;
+
+    @Column(updatable = false)
+    @Min(0)
+    private int memberCount;
+
     @Column
     @ManyToMany(fetch = FetchType.LAZY)
     private List<User> members;
@@ -45,6 +59,26 @@ public class BetGroup {
         this.members = members;
     }
 
+    public void memberJoined(int totalScore) {
+        memberCount++;
+        addToScoreSum(totalScore);
+    }
+
+    public void memberLeft(int totalScore) {
+        memberCount--;
+        addToScoreSum(-totalScore);
+    }
+
+    public void addToScoreSum(int delta) {
+        scoreSum += delta;
+        updateScore();
+    }
+
+    @PostLoad
+    public void updateScore() {
+        score = memberCount == 0 ? 0 : scoreSum / memberCount;
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == null) return false;
@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"phase_id", "slot"}))
 public class Game {
 
     @Id
@@ -53,6 +54,12 @@ public class Game {
     @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.PERSIST)
     private Phase phase;
 
+    /**
+     * Position of the game within its phase on the scraped page, null for games that weren't scraped.
+     */
+    @Column
+    private Integer slot;
+
     public Game(LocalDateTime dateTime, Integer homeTeamGoals, Integer awayTeamGoals, TournamentTeam homeTeam, TournamentTeam awayTeam, Location location, Phase phase) {
         this.dateTime = dateTime;
         this.homeTeamGoals = homeTeamGoals;
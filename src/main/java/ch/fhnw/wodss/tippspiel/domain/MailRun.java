@@ -0,0 +1,39 @@
+package ch.fhnw.wodss.tippspiel.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Written once the last page of a job run is in the outbox. Only closed runs are reported, and only once.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+public class MailRun {
+
+    @Id
+    @Column(length = 64)
+    private String run;
+
+    @Column
+    private int mailCount;
+
+    @Column
+    @NotNull
+    private LocalDateTime closedAt;
+
+    @Column
+    private LocalDateTime reportedAt;
+
+    public MailRun(String run, int mailCount, LocalDateTime now) {
+        this.run = run;
+        this.mailCount = mailCount;
+        this.closedAt = now;
+    }
+}
@@ -0,0 +1,99 @@
+package ch.fhnw.wodss.tippspiel.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * A mail written in the same transaction as the change that triggers it and sent later by the MailDispatcher.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(indexes = {@Index(columnList = "status,nextAttemptAt"), @Index(columnList = "run,status")})
+public class OutboxMail {
+
+    public enum Status {PENDING, SENT, FAILED}
+
+    @Id
+    @GeneratedValue
+    @Column
+    private Long id;
+
+    @Column
+    @NotNull
+    private String recipient;
+
+    @Column
+    @NotNull
+    private String subject;
+
+    @Column(length = 10000)
+    @NotNull
+    private String body;
+
+    @Column
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column
+    private int attempts;
+
+    @Column
+    @NotNull
+    private LocalDateTime createdAt;
+
+    @Column
+    @NotNull
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    /**
+     * The job run that queued the mail, like "reminder:2018-06-20", or null for single mails.
+     */
+    @Column(length = 64)
+    private String run;
+
+    public OutboxMail(String recipient, String subject, String body, LocalDateTime now) {
+        this(recipient, subject, body, null, now);
+    }
+
+    public OutboxMail(String recipient, String subject, String body, String run, LocalDateTime now) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.run = run;
+        this.status = Status.PENDING;
+        this.createdAt = now;
+        this.nextAttemptAt = now;
+    }
+
+    public void sent(LocalDateTime now) {
+        status = Status.SENT;
+        sentAt = now;
+        attempts++;
+        lastError = null;
+    }
+
+    /**
+     * Schedules the next attempt with exponential backoff, or gives up after the last attempt.
+     */
+    public void failed(String error, LocalDateTime now, int maxAttempts, long backoffSeconds) {
+        attempts++;
+        lastError = error == null || error.length() <= 500 ? error : error.substring(0, 500);
+        if (attempts >= maxAttempts) {
+            status = Status.FAILED;
+        } else {
+            nextAttemptAt = now.plusSeconds(Math.min(3600, backoffSeconds << (attempts - 1)));
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.Collection;
@@ -17,6 +18,7 @@ import java.util.Set;
 @Data
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(columnList = "totalScore,exactHits"))
 public class User implements UserDetails {
 
     @Column
@@ -55,6 +57,21 @@ public class User implements UserDetails {
     @Column
     private boolean dailyResults = true;
 
+    /**
+     * Sum of all bet scores, maintained by delta whenever a bet of this user gets scored. Only written by bulk
+     * updates, so saving a stale user (e.g. the principal of a session) can't overwrite it.
+     */
+    @Column(updatable = false)
+    @Min(0)
+    private int totalScore;
+
+    /**
+     * Number of bets with an exactly predicted result, maintained together with the total score.
+     */
+    @Column(updatable = false)
+    @Min(0)
+    private int exactHits;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "user_role", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles = new HashSet<>();
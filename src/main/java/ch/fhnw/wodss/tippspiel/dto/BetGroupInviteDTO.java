@@ -0,0 +1,26 @@
+package ch.fhnw.wodss.tippspiel.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@JsonAutoDetect
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BetGroupInviteDTO {
+
+    @JsonProperty("betGroupId")
+    private Long betGroupId;
+
+    @JsonProperty("token")
+    private String token;
+
+    @JsonProperty("expires")
+    private Date expires;
+
+}
@@ -0,0 +1,30 @@
+package ch.fhnw.wodss.tippspiel.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@JsonAutoDetect
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryDTO {
+
+    @JsonProperty("rank")
+    private Integer rank;
+
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("score")
+    private Integer score;
+
+    @JsonProperty("exactHits")
+    private Integer exactHits;
+
+}
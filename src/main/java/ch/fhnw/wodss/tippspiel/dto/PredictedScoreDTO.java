@@ -0,0 +1,22 @@
+package ch.fhnw.wodss.tippspiel.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@JsonAutoDetect
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictedScoreDTO {
+    @JsonProperty("homeTeamGoals")
+    private Integer homeTeamGoals;
+
+    @JsonProperty("awayTeamGoals")
+    private Integer awayTeamGoals;
+
+    @JsonProperty("count")
+    private Integer count;
+}
@@ -0,0 +1,32 @@
+package ch.fhnw.wodss.tippspiel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A game as read from the Wikipedia page, with teams, location, phase and group by name. The slot is its position
+ * within the phase on the page, which stays the same when the game is rescheduled or its teams become known.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScrapedGameDTO {
+
+    private LocalDateTime dateTime;
+    private String homeTeam;
+    private String awayTeam;
+    private String location;
+    private String phase;
+    private String group;
+    private Integer homeTeamGoals;
+    private Integer awayTeamGoals;
+    private Integer slot;
+
+    public ScrapedGameDTO(LocalDateTime dateTime, String homeTeam, String awayTeam, String location, String phase,
+                          String group, Integer homeTeamGoals, Integer awayTeamGoals) {
+        this(dateTime, homeTeam, awayTeam, location, phase, group, homeTeamGoals, awayTeamGoals, null);
+    }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @JsonAutoDetect
 @NoArgsConstructor
@@ -20,4 +22,13 @@ public class StatistikDTO {
 
     @JsonProperty("homeLose")
     private Integer homeLose;
+
+    @JsonProperty("averageHomeTeamGoals")
+    private Double averageHomeTeamGoals;
+
+    @JsonProperty("averageAwayTeamGoals")
+    private Double averageAwayTeamGoals;
+
+    @JsonProperty("topScores")
+    private List<PredictedScoreDTO> topScores;
 }
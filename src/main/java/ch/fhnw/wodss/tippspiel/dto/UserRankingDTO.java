@@ -2,12 +2,14 @@ package ch.fhnw.wodss.tippspiel.dto;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @JsonAutoDetect
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 public class UserRankingDTO {
 
     @JsonProperty("id")
@@ -19,4 +21,7 @@ public class UserRankingDTO {
     @JsonProperty("score")
     private Integer score;
 
+    @JsonProperty("exactHits")
+    private Integer exactHits;
+
 }
@@ -0,0 +1,16 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+/**
+ * Published whenever a bet was placed, changed or removed. The previous goals are null for a new bet, the
+ * current goals are null for a removed one.
+ */
+@Data
+public class BetChangedEvent {
+    private final Long gameId;
+    private final Integer previousHomeTeamGoals;
+    private final Integer previousAwayTeamGoals;
+    private final Integer homeTeamGoals;
+    private final Integer awayTeamGoals;
+}
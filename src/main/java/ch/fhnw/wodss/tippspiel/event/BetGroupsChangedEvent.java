@@ -0,0 +1,13 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+import java.util.Collection;
+
+/**
+ * Published whenever the members or scores of bet groups changed, so that cached group data can be dropped.
+ */
+@Data
+public class BetGroupsChangedEvent {
+    private final Collection<Long> betGroupIds;
+}
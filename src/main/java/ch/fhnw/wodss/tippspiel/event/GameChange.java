@@ -0,0 +1,20 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change of a game found by a scraper run, with the game's kickoff and result after the change.
+ */
+@Data
+public class GameChange {
+
+    public enum Type {CREATED, KICKOFF_MOVED, TEAMS_SET, RESULT_SET, RESULT_CORRECTED}
+
+    private final Long gameId;
+    private final Type type;
+    private final LocalDateTime kickoff;
+    private final Integer homeTeamGoals;
+    private final Integer awayTeamGoals;
+}
@@ -0,0 +1,13 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+/**
+ * Published whenever a final score has been written for a game, so that only the bets of this game get scored.
+ */
+@Data
+public class GameResultEvent {
+    private final Long gameId;
+    private final Integer homeTeamGoals;
+    private final Integer awayTeamGoals;
+}
@@ -0,0 +1,14 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a game was created, its kickoff moved or it was deleted, in which case the kickoff is null.
+ */
+@Data
+public class GameScheduleChangedEvent {
+    private final Long gameId;
+    private final LocalDateTime kickoff;
+}
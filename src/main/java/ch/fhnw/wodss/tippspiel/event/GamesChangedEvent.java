@@ -0,0 +1,14 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Published once per scraper run that changed games, with all changes of the run. The single changes are
+ * published as GameScheduleChangedEvent and GameResultEvent as well.
+ */
+@Data
+public class GamesChangedEvent {
+    private final List<GameChange> changes;
+}
@@ -0,0 +1,11 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+/**
+ * Published when mails were written to the outbox, so that the dispatcher picks them up right after the commit.
+ */
+@Data
+public class MailEnqueuedEvent {
+    private final int count;
+}
@@ -0,0 +1,11 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+/**
+ * Published when a job run has queued its last mail, the run may be complete already if its mails went out quickly.
+ */
+@Data
+public class MailRunClosedEvent {
+    private final String run;
+}
@@ -0,0 +1,11 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+/**
+ * Published when a user deleted their account.
+ */
+@Data
+public class UserDeletedEvent {
+    private final Long userId;
+}
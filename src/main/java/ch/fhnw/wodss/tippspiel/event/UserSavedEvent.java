@@ -0,0 +1,12 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+/**
+ * Published when a user was registered or renamed.
+ */
+@Data
+public class UserSavedEvent {
+    private final Long userId;
+    private final String name;
+}
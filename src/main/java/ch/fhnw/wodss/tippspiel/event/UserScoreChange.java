@@ -0,0 +1,13 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+/**
+ * Difference by which the total score and exact hits of a user moved.
+ */
+@Data
+public class UserScoreChange {
+    private final Long userId;
+    private final int scoreDelta;
+    private final int exactHitsDelta;
+}
@@ -0,0 +1,17 @@
+package ch.fhnw.wodss.tippspiel.event;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published after the bets of a game have been scored, with the users whose totals changed by it. A result and
+ * each of its corrections is scored at a different time.
+ */
+@Data
+public class UserScoresChangedEvent {
+    private final Long gameId;
+    private final List<UserScoreChange> changes;
+    private final LocalDateTime scoredAt;
+}
@@ -2,6 +2,7 @@ package ch.fhnw.wodss.tippspiel.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -51,4 +52,16 @@ public class RESTExceptionHandler {
         logger.warn("User tried to persist a duplicate: " + ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ExceptionResponse> busy(ServiceBusyException ex) {
+        ExceptionResponse response = new ExceptionResponse();
+        response.setErrorCode("Service Unavailable");
+        response.setErrorMessage(ex.getMessage());
+
+        logger.warn("Request rejected because the service is busy: " + ex.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(response, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
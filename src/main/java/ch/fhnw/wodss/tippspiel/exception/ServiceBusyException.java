@@ -0,0 +1,17 @@
+package ch.fhnw.wodss.tippspiel.exception;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be retried later.
+ */
+public class ServiceBusyException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public ServiceBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
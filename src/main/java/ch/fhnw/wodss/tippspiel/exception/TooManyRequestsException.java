@@ -0,0 +1,17 @@
+package ch.fhnw.wodss.tippspiel.exception;
+
+/**
+ * Thrown when a client exceeded a rate limit and should retry after the given time.
+ */
+public class TooManyRequestsException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public TooManyRequestsException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,29 +1,93 @@
 package ch.fhnw.wodss.tippspiel.job;
 
+import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
 import ch.fhnw.wodss.tippspiel.util.WikipediaScraper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the scraper on a thread of its own, so a slow download doesn't hold up the other scheduled jobs. A run
+ * that is due while the previous one is still going is dropped.
+ * <p>
+ * Besides the regular runs the page is polled often from the expected end of a game until its result is in, so
+ * that the result is scored and ranked within minutes of the final whistle. Polling is cheap as long as the page
+ * is unchanged, see {@link WikipediaScraper#scrape()}.
+ */
 @Component
 public class ApiConnector {
     private final WikipediaScraper wikipediaScraper;
+    private final GameRepository gameRepository;
     private static final Logger logger = LoggerFactory.getLogger(ApiConnector.class);
+    private ThreadPoolExecutor executor;
 
-
+    @Value("${scraper.live.fromminutes:105}")
+    private long LIVE_FROM_MINUTES;
+    @Value("${scraper.live.untilminutes:240}")
+    private long LIVE_UNTIL_MINUTES;
 
     @Autowired
-    public ApiConnector(WikipediaScraper wikipediaScraper) {
+    public ApiConnector(WikipediaScraper wikipediaScraper, GameRepository gameRepository) {
         this.wikipediaScraper = wikipediaScraper;
+        this.gameRepository = gameRepository;
+    }
+
+    @PostConstruct
+    public void startExecutor() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "scraper");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdownNow();
     }
 
     @Scheduled(cron = "0 */30 9-23 * * *")
     public void updateGames() {
-        wikipediaScraper.scrapeGroupToSemiFinal();
-        wikipediaScraper.scrapeSmallFinal();
-        wikipediaScraper.scrapeFinal();
-        logger.info("New Data scraped from wikipedia.");
+        submit();
+    }
+
+    /**
+     * Scrapes while a game that kicked off between untilminutes and fromminutes ago has no result yet.
+     */
+    @Scheduled(fixedDelayString = "${scraper.live.pollmillis:60000}")
+    public void pollFinishedGames() {
+        LocalDateTime now = LocalDateTime.now();
+        if (gameRepository.existsByDateTimeBetweenAndHomeTeamGoalsIsNull(now.minusMinutes(LIVE_UNTIL_MINUTES),
+                now.minusMinutes(LIVE_FROM_MINUTES))) {
+            submit();
+        }
+    }
+
+    private void submit() {
+        try {
+            executor.execute(() -> {
+                try {
+                    wikipediaScraper.scrape();
+                    logger.info("New Data scraped from wikipedia.");
+                } catch (RuntimeException e) {
+                    logger.error("Scraper run failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.info("Previous scraper run is still going, skipping this one.");
+        }
     }
 }
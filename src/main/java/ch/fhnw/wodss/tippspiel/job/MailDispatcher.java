@@ -0,0 +1,247 @@
+package ch.fhnw.wodss.tippspiel.job;
+
+import ch.fhnw.wodss.tippspiel.domain.OutboxMail;
+import ch.fhnw.wodss.tippspiel.event.MailEnqueuedEvent;
+import ch.fhnw.wodss.tippspiel.event.MailRunClosedEvent;
+import ch.fhnw.wodss.tippspiel.mail.MailTransport;
+import ch.fhnw.wodss.tippspiel.mail.MailTransportException;
+import ch.fhnw.wodss.tippspiel.persistance.MailRunRepository;
+import ch.fhnw.wodss.tippspiel.persistance.MailRunStatusView;
+import ch.fhnw.wodss.tippspiel.persistance.OutboxMailRepository;
+import ch.fhnw.wodss.tippspiel.util.GMail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the mail outbox on a small pool of its own: due mails are split into batches, every worker sends one
+ * batch and writes the outcome of the whole batch at once. Failed mails are retried with exponential backoff,
+ * a rate limit reported by the transport pauses all sending until it has passed. A worker that finishes its batch
+ * picks up the next one right away, so a large job run is sent with all workers busy until the outbox is drained.
+ * Once a run is closed by its job and its last mail is sent or given up on, the throughput and failures of the run
+ * are reported.
+ */
+@Component
+public class MailDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+    @Value("${mailer.from}")
+    private String from;
+    @Value("${mail.outbox.workers:2}")
+    private int WORKERS;
+    @Value("${mail.outbox.batchsize:25}")
+    private int BATCH_SIZE;
+    @Value("${mail.outbox.maxattempts:5}")
+    private int MAX_ATTEMPTS;
+    @Value("${mail.outbox.backoffseconds:30}")
+    private long BACKOFF_SECONDS;
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailRunRepository mailRunRepository;
+    private final MailTransport mailTransport;
+    private final MeterRegistry meterRegistry;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile LocalDateTime pausedUntil = LocalDateTime.MIN;
+    private ThreadPoolExecutor executor;
+    private Counter sent;
+    private Counter retried;
+    private Counter failed;
+
+    @Autowired
+    public MailDispatcher(OutboxMailRepository outboxMailRepository, MailRunRepository mailRunRepository,
+                          MailTransport mailTransport, MeterRegistry meterRegistry) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailRunRepository = mailRunRepository;
+        this.mailTransport = mailTransport;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void startExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WORKERS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        sent = meterRegistry.counter("mail.outbox", "outcome", "sent");
+        retried = meterRegistry.counter("mail.outbox", "outcome", "retried");
+        failed = meterRegistry.counter("mail.outbox", "outcome", "failed");
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMailEnqueued(MailEnqueuedEvent event) {
+        dispatch();
+    }
+
+    /**
+     * The workers may have sent the whole run before it was closed, then nobody else would report it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMailRunClosed(MailRunClosedEvent event) {
+        reportIfCompleted(event.getRun());
+    }
+
+    /**
+     * Picks up retries and whatever didn't fit into the pool when it was enqueued.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.pollmillis:15000}")
+    public void poll() {
+        dispatch();
+    }
+
+    /**
+     * Hands due mails to idle workers, batches that don't fit into the pool stay in the outbox for the next run.
+     */
+    public synchronized void dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(pausedUntil)) return;
+        int capacity = (WORKERS - executor.getActiveCount() + executor.getQueue().remainingCapacity()) * BATCH_SIZE;
+        if (capacity <= 0) return;
+        List<OutboxMail> due = outboxMailRepository.getDue(OutboxMail.Status.PENDING, now,
+                PageRequest.of(0, capacity + inFlight.size()));
+        List<OutboxMail> batch = new ArrayList<>(BATCH_SIZE);
+        for (OutboxMail mail : due) {
+            if (inFlight.contains(mail.getId())) continue;
+            batch.add(mail);
+            if (batch.size() == BATCH_SIZE) {
+                if (!submit(batch)) return;
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) submit(batch);
+    }
+
+    private boolean submit(List<OutboxMail> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxMail mail : batch) ids.add(mail.getId());
+        inFlight.addAll(ids);
+        try {
+            executor.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    // not while a dispatch is between reading due mails and skipping the ones in flight
+                    synchronized (this) {
+                        inFlight.removeAll(ids);
+                    }
+                }
+                dispatch();
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.removeAll(ids);
+            return false;
+        }
+    }
+
+    private void send(List<OutboxMail> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMail mail = batch.get(i);
+            try {
+                mailTransport.send(GMail.createEmail(mail.getRecipient(), from, mail.getSubject(), mail.getBody()));
+                mail.sent(LocalDateTime.now());
+                sent.increment();
+            } catch (MailTransportException e) {
+                if (e.isRateLimited()) {
+                    pause(batch.subList(i, batch.size()), e.getRetryAfterMillis());
+                    break;
+                }
+                mail.failed(e.getMessage(), LocalDateTime.now(), MAX_ATTEMPTS, BACKOFF_SECONDS);
+                countFailure(mail, e);
+            } catch (MessagingException e) {
+                // the message itself is broken, e.g. an invalid address, retrying won't help
+                mail.failed(e.getMessage(), LocalDateTime.now(), 1, BACKOFF_SECONDS);
+                countFailure(mail, e);
+            }
+        }
+        outboxMailRepository.saveAll(batch);
+        reportCompletedRuns(batch);
+    }
+
+    private void reportCompletedRuns(List<OutboxMail> batch) {
+        Set<String> runs = new HashSet<>();
+        for (OutboxMail mail : batch) {
+            if (mail.getRun() != null) runs.add(mail.getRun());
+        }
+        for (String run : runs) {
+            reportIfCompleted(run);
+        }
+    }
+
+    private void reportIfCompleted(String run) {
+        if (outboxMailRepository.countByRunAndStatus(run, OutboxMail.Status.PENDING) > 0) return;
+        // the flag is only set on a closed run, and only by one of the workers that finish its last batches together
+        if (mailRunRepository.markReported(run, LocalDateTime.now()) == 1) {
+            report(run);
+        }
+    }
+
+    private void report(String run) {
+        long sentCount = 0;
+        long failedCount = 0;
+        LocalDateTime queuedAt = null;
+        LocalDateTime lastSentAt = null;
+        for (MailRunStatusView status : outboxMailRepository.getRunSummary(run)) {
+            if (status.getStatus() == OutboxMail.Status.SENT) {
+                sentCount = status.getCount();
+                lastSentAt = status.getLastSentAt();
+            } else if (status.getStatus() == OutboxMail.Status.FAILED) {
+                failedCount = status.getCount();
+            }
+            if (queuedAt == null || status.getQueuedAt().isBefore(queuedAt)) queuedAt = status.getQueuedAt();
+        }
+        double throughput = 0;
+        if (lastSentAt != null) {
+            throughput = sentCount * 1000.0 / Math.max(1, Duration.between(queuedAt, lastSentAt).toMillis());
+        }
+        String job = run.contains(":") ? run.substring(0, run.indexOf(':')) : run;
+        meterRegistry.summary("mail.run.sent", "job", job).record(sentCount);
+        meterRegistry.summary("mail.run.failed", "job", job).record(failedCount);
+        meterRegistry.summary("mail.run.throughput", "job", job).record(throughput);
+        logger.info(String.format("Mail run %s done: %d sent, %d failed, %.2f mails per second", run, sentCount,
+                failedCount, throughput));
+    }
+
+    private void pause(List<OutboxMail> unsent, long retryAfterMillis) {
+        pausedUntil = LocalDateTime.now().plusNanos(retryAfterMillis * 1_000_000);
+        for (OutboxMail mail : unsent) {
+            mail.setNextAttemptAt(pausedUntil);
+        }
+        logger.warn("Mail transport rate limited, sending paused until " + pausedUntil);
+    }
+
+    private void countFailure(OutboxMail mail, Exception e) {
+        if (mail.getStatus() == OutboxMail.Status.FAILED) {
+            failed.increment();
+            logger.error("Giving up on mail " + mail.getId() + " to " + mail.getRecipient() + ": " + e.getMessage());
+        } else {
+            retried.increment();
+            logger.warn("Mail " + mail.getId() + " failed, retrying at " + mail.getNextAttemptAt() + ": " + e.getMessage());
+        }
+    }
+}
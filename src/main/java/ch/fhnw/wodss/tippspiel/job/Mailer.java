@@ -1,98 +1,172 @@
 package ch.fhnw.wodss.tippspiel.job;
 
 import ch.fhnw.wodss.tippspiel.domain.Game;
-import ch.fhnw.wodss.tippspiel.domain.User;
-import ch.fhnw.wodss.tippspiel.persistance.BetRepository;
+import ch.fhnw.wodss.tippspiel.domain.OutboxMail;
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+import ch.fhnw.wodss.tippspiel.event.UserScoreChange;
+import ch.fhnw.wodss.tippspiel.event.UserScoresChangedEvent;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.mail.MailTemplate;
+import ch.fhnw.wodss.tippspiel.persistance.DailyReportView;
 import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
+import ch.fhnw.wodss.tippspiel.persistance.UserRecipientView;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
-import ch.fhnw.wodss.tippspiel.util.GMail;
-import com.google.api.services.gmail.Gmail;
+import ch.fhnw.wodss.tippspiel.service.LeaderboardService;
+import ch.fhnw.wodss.tippspiel.service.MailOutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
-import java.io.IOException;
-import java.security.GeneralSecurityException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class Mailer {
     private static final Logger logger = LoggerFactory.getLogger(Mailer.class);
+    private static final String REMINDER_SUBJECT = "Tippspiel WM 2018 - Ausstehende Tippabgaben!";
+    private static final MailTemplate REMINDER = MailTemplate.compile(
+            "Hallo {0}\nVergiss nicht deinen Tipp für die heutigen Spiele abzugeben!");
+    private static final String DAILY_REPORT_SUBJECT = "Tippspiel WM 2018 - Tagesrapport";
+    private static final MailTemplate DAILY_REPORT = MailTemplate.compile(
+            "Hallo {0}\nDu hast heute {1} Punkte erzielt!\nAktuell hast du {2} Punke und bist auf Rang {3}.\n Herzliche Gratulation!");
+    private static final MailTemplate RESULT_SUBJECT = MailTemplate.compile("Tippspiel WM 2018 - {0} {1}:{2} {3}");
+    private static final MailTemplate RESULT = MailTemplate.compile(
+            "Hallo {0}\nDas Spiel {1} - {2} endete {3}:{4}, dein Punktestand hat sich um {5} Punkte verändert.\nAktuell hast du {6} Punkte und bist auf Rang {7}.");
+    private static final int RECIPIENT_CHUNK_SIZE = 1000;
 
     private UserRepository userRepository;
     private GameRepository gameRepository;
-    private BetRepository betRepository;
+    private LeaderboardService leaderboardService;
+    private MailOutboxService mailOutboxService;
 
-    @Value("${mailer.from}")
-    private String from;
+    @Value("${mailer.pagesize:500}")
+    private int PAGE_SIZE;
+    @Value("${mailer.results:true}")
+    private boolean RESULTS;
 
     @Autowired
-    public Mailer(UserRepository userRepository, GameRepository gameRepository, BetRepository betRepository) {
+    public Mailer(UserRepository userRepository, GameRepository gameRepository, LeaderboardService leaderboardService,
+                  MailOutboxService mailOutboxService) {
         this.userRepository = userRepository;
         this.gameRepository = gameRepository;
-        this.betRepository = betRepository;
+        this.leaderboardService = leaderboardService;
+        this.mailOutboxService = mailOutboxService;
     }
 
+    /**
+     * Reminds everyone with at least one open bet today. The audience is read page by page, so only one page of
+     * users and their mails is held in memory at a time. The MailDispatcher sends them in parallel and reports
+     * the run once it is closed after the last page and all are sent.
+     */
     @Scheduled(cron = "0 0 8 * * *")
-    public void remindUsersToBet() throws GeneralSecurityException {
-        List<User> usersToRemind = userRepository.findAllByRemindersTrue();
-        Gmail service = GMail.getAuthorizedService().orElseThrow(() -> new GeneralSecurityException("Can't authenticate to gmail service."));
-        String message = "Vergiss nicht deinen Tipp für die heutigen Spiele abzugeben!";
-        String subject = "Tippspiel WM 2018 - Ausstehende Tippabgaben!";
-        for (User user : usersToRemind) {
-            try {
-                if (checkUserHasOpenBets(user)) {
-                    MimeMessage mimeMessage = GMail.createEmail(user.getEmail(), from, subject, message);
-                    GMail.sendMessage(service, "me", mimeMessage);
-                }
-            } catch (MessagingException | IOException e) {
-                logger.error(Arrays.toString(e.getStackTrace()));
+    public void remindUsersToBet() {
+        LocalDateTime start = LocalDateTime.now().withHour(0).withMinute(0);
+        LocalDateTime end = LocalDateTime.now().withHour(23).withMinute(59);
+        String run = "reminder:" + LocalDate.now();
+        int queued = 0;
+        Long afterId = 0L;
+        List<UserRecipientView> page;
+        do {
+            page = userRepository.getUsersToRemind(afterId, start, end, PageRequest.of(0, PAGE_SIZE));
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMail> mails = new ArrayList<>(page.size());
+            for (UserRecipientView user : page) {
+                mails.add(new OutboxMail(user.getEmail(), REMINDER_SUBJECT, REMINDER.render(user.getName()), run, now));
+                afterId = user.getId();
             }
-        }
-        logger.info("Reminders sent");
+            mailOutboxService.enqueueAll(mails);
+            queued += mails.size();
+        } while (page.size() == PAGE_SIZE);
+        mailOutboxService.closeRun(run, queued);
+        logger.info(queued + " reminders queued");
     }
 
+    /**
+     * Reports today's points, the total and the rank to every subscriber. Today's points are read page by page with
+     * one query each, total and rank are looked up in the leaderboard.
+     */
     @Scheduled(cron = "0 0 23 * * *")
-    public void sendDailyReport() throws GeneralSecurityException {
+    public void sendDailyReport() {
         LocalDateTime start = LocalDateTime.now().withHour(0).withMinute(0);
         LocalDateTime end = LocalDateTime.now().withHour(23).withMinute(59);
-        Gmail service = GMail.getAuthorizedService().orElseThrow(() -> new GeneralSecurityException("Can't authenticate to gmail service."));
-        StringBuilder message = new StringBuilder();
-        message.append("Du hast heute ");
-        String subject = "Tippspiel WM 2018 - Tagesrapport";
-        List<User> usersToReport = userRepository.findAllByDailyResultsTrue();
-        for (User userToReport : usersToReport) {
-            int score = betRepository.getTodayScore(userToReport, start, end);
-            message.append(score);
-            message.append(" Punkte erzielt!\n");
-            message.append("Aktuell hast du ");
-            message.append(betRepository.getUserScore(userToReport));
-            message.append(" Punke.\n Herzliche Gratulation!");
-            try {
-                MimeMessage mimeMessage = GMail.createEmail(userToReport.getEmail(), from, subject, message.toString());
-                GMail.sendMessage(service, "me", mimeMessage);
-            } catch (MessagingException | IOException e) {
-                logger.error(Arrays.toString(e.getStackTrace()));
+        String run = "dailyreport:" + LocalDate.now();
+        int queued = 0;
+        Long afterId = 0L;
+        List<DailyReportView> page;
+        do {
+            page = userRepository.getDailyReports(afterId, start, end, PageRequest.of(0, PAGE_SIZE));
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMail> mails = new ArrayList<>(page.size());
+            for (DailyReportView report : page) {
+                afterId = report.getUserId();
+                LeaderboardEntryDTO rank;
+                try {
+                    rank = leaderboardService.getRank(report.getUserId());
+                } catch (ResourceNotFoundException e) {
+                    continue;
+                }
+                String message = DAILY_REPORT.render(report.getName(), report.getTodayPoints(), rank.getScore(),
+                        rank.getRank());
+                mails.add(new OutboxMail(report.getEmail(), DAILY_REPORT_SUBJECT, message, run, now));
             }
-        }
-        logger.info("Daily report sent.");
+            mailOutboxService.enqueueAll(mails);
+            queued += mails.size();
+        } while (page.size() == PAGE_SIZE);
+        mailOutboxService.closeRun(run, queued);
+        logger.info("Daily report queued for " + queued + " users.");
     }
 
-    private boolean checkUserHasOpenBets(User user) {
-        LocalDateTime start = LocalDateTime.now().withHour(0).withMinute(0);
-        LocalDateTime end = LocalDateTime.now().withHour(23).withMinute(59);
-        List<Game> todayGames = gameRepository.getAllByDateTimeIsBetween(start, end);
-        int bettedGames = 0;
-        for (Game game : todayGames) {
-            bettedGames += user.getBets().stream().filter(bet -> bet.getGame().equals(game)).count();
+    /**
+     * Tells the subscribers whose score changed with a result their new total and rank, right after the bets of
+     * the game were scored. Scoring the same result again changes no score and queues nothing, a corrected result
+     * only reaches the users whose score it changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUserScoresChanged(UserScoresChangedEvent event) {
+        if (!RESULTS) return;
+        Game game = gameRepository.findById(event.getGameId()).orElse(null);
+        if (game == null || game.getHomeTeamGoals() == null || game.getAwayTeamGoals() == null) return;
+        Map<Long, Integer> deltaByUser = new HashMap<>();
+        for (UserScoreChange change : event.getChanges()) {
+            if (change.getScoreDelta() != 0) deltaByUser.put(change.getUserId(), change.getScoreDelta());
+        }
+        String homeTeam = game.getHomeTeam().getName();
+        String awayTeam = game.getAwayTeam().getName();
+        String subject = RESULT_SUBJECT.render(homeTeam, game.getHomeTeamGoals(), game.getAwayTeamGoals(), awayTeam);
+        // a result corrected back to an earlier score is a run of its own
+        String run = "result:" + game.getId() + ":" + game.getHomeTeamGoals() + "-" + game.getAwayTeamGoals() + ":"
+                + event.getScoredAt();
+        List<Long> userIds = new ArrayList<>(deltaByUser.keySet());
+        List<OutboxMail> mails = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < userIds.size(); from += RECIPIENT_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + RECIPIENT_CHUNK_SIZE, userIds.size()));
+            for (UserRecipientView user : userRepository.getResultRecipients(chunk)) {
+                LeaderboardEntryDTO rank;
+                try {
+                    rank = leaderboardService.getRank(user.getId());
+                } catch (ResourceNotFoundException e) {
+                    continue;
+                }
+                String message = RESULT.render(user.getName(), homeTeam, awayTeam, game.getHomeTeamGoals(),
+                        game.getAwayTeamGoals(), deltaByUser.get(user.getId()), rank.getScore(), rank.getRank());
+                mails.add(new OutboxMail(user.getEmail(), subject, message, run, now));
+            }
         }
-        return bettedGames < todayGames.size();
+        mailOutboxService.enqueueAll(mails);
+        mailOutboxService.closeRun(run, mails.size());
+        logger.info(mails.size() + " result mails queued for game " + game.getId() + ".");
     }
 }
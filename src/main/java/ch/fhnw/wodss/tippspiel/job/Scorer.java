@@ -1,51 +1,175 @@
 package ch.fhnw.wodss.tippspiel.job;
 
-import ch.fhnw.wodss.tippspiel.domain.Bet;
-import ch.fhnw.wodss.tippspiel.domain.BetGroup;
+import ch.fhnw.wodss.tippspiel.domain.Game;
+import ch.fhnw.wodss.tippspiel.event.GameResultEvent;
+import ch.fhnw.wodss.tippspiel.event.UserScoreChange;
+import ch.fhnw.wodss.tippspiel.event.UserScoresChangedEvent;
 import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
+import ch.fhnw.wodss.tippspiel.persistance.BetGroupScoreView;
 import ch.fhnw.wodss.tippspiel.persistance.BetRepository;
+import ch.fhnw.wodss.tippspiel.persistance.BetScoreView;
+import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
+import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import ch.fhnw.wodss.tippspiel.persistance.UserScoreView;
+import ch.fhnw.wodss.tippspiel.util.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class Scorer {
 
     private static final Logger logger = LoggerFactory.getLogger(Scorer.class);
+    private static final int SCORE_UPDATE_CHUNK_SIZE = 1000;
+    // 5 for the exact result plus 1 + 1 for both goals plus 3 for the goal difference
+    public static final int EXACT_RESULT_SCORE = 10;
     private BetRepository betRepository;
     private BetGroupRepository betGroupRepository;
+    private GameRepository gameRepository;
+    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public Scorer(BetRepository betRepository, BetGroupRepository betGroupRepository) {
+    public Scorer(BetRepository betRepository, BetGroupRepository betGroupRepository, GameRepository gameRepository,
+                  UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.betRepository = betRepository;
         this.betGroupRepository = betGroupRepository;
+        this.gameRepository = gameRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
-    @Scheduled(cron = "30 */30 17-23 * * *")
-    public void setBetScore() {
+    /**
+     * Rebuilds the materialized totals from the bets once at startup, so that totals drifted by manual data
+     * changes do not stay wrong until the next result.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void reconcileTotalScores() {
+        Map<Long, UserScoreView> sums = new HashMap<>();
+        for (UserScoreView sum : betRepository.getScoreSumsByUser(EXACT_RESULT_SCORE)) {
+            sums.put(sum.getUserId(), sum);
+        }
+        int updated = 0;
+        for (UserScoreView total : userRepository.getTotalScores()) {
+            UserScoreView sum = sums.get(total.getUserId());
+            long totalScore = sum == null ? 0 : sum.getTotalScore();
+            long exactHits = sum == null ? 0 : sum.getExactHits();
+            if (total.getTotalScore() != totalScore || total.getExactHits() != exactHits) {
+                updated += userRepository.setTotalScore(total.getUserId(), (int) totalScore, (int) exactHits);
+            }
+        }
+        logger.info("Total scores reconciled, " + updated + " users corrected.");
+        reconcileBetGroupScores();
+    }
+
+    /**
+     * Bet group scores are kept as running sums, this corrects groups whose sums drifted from their members.
+     */
+    private void reconcileBetGroupScores() {
+        int corrected = 0;
+        for (BetGroupScoreView sum : betGroupRepository.getScoreSums()) {
+            if (!sum.getMemberCount().equals(sum.getStoredMemberCount()) || !sum.getScoreSum().equals(sum.getStoredScoreSum())) {
+                corrected += betGroupRepository.setScoreSum(sum.getBetGroupId(), sum.getMemberCount().intValue(),
+                        sum.getScoreSum().intValue());
+            }
+        }
+        logger.info("Bet group scores reconciled, " + corrected + " groups corrected.");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onGameResult(GameResultEvent event) {
+        scoreGame(event.getGameId());
+    }
+
+    /**
+     * Safety net for results whose event got lost, e.g. due to a restart between commit and scoring.
+     */
+    @Scheduled(cron = "0 55 23 * * *")
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void rescoreTodayGames() {
         LocalDateTime start = LocalDateTime.now().withHour(0).withMinute(0);
         LocalDateTime end = LocalDateTime.now().withHour(23).withMinute(59);
-        List<Bet> todayBets = betRepository.getTodayBets(start, end);
-        for (Bet bet : todayBets) {
-            int score = calculateScore(bet);
-            bet.setScore(score);
-            betRepository.save(bet);
+        gameRepository.getAllByDateTimeIsBetween(start, end).stream()
+                .filter(game -> game.getHomeTeamGoals() != null && game.getAwayTeamGoals() != null)
+                .forEach(game -> scoreGame(game.getId()));
+        logger.info("Bet scores of today reconciled.");
+    }
+
+    /**
+     * Scores all bets of a game set-based: the bets are read as scalar rows and only the changed scores are
+     * written, with one UPDATE per distinct score value and chunk of bets. The users' totals are moved by the
+     * difference between old and new score, so a corrected result does not count twice.
+     * <p>
+     * The game row is locked first: runs for the same game, e.g. after a result and its correction or by the
+     * nightly rescoring, wait for each other, and each one reads the bet scores and the result committed by the
+     * previous one. Otherwise two runs could both see a bet unscored and add its score twice.
+     */
+    private void scoreGame(Long gameId) {
+        Game game = gameRepository.findByIdForScoring(gameId).orElse(null);
+        if (game == null || game.getHomeTeamGoals() == null || game.getAwayTeamGoals() == null) return;
+        int actualHomeTeamGoals = game.getHomeTeamGoals();
+        int actualAwayTeamGoals = game.getAwayTeamGoals();
+        Map<Integer, List<Long>> betIdsByScore = new HashMap<>();
+        Map<Tuple<Integer, Integer>, List<Long>> userIdsByDelta = new HashMap<>();
+        List<UserScoreChange> changes = new ArrayList<>();
+        for (BetScoreView bet : betRepository.getScoreViewsByGame(gameId)) {
+            int score = calculateScore(actualHomeTeamGoals, actualAwayTeamGoals, bet.getHomeTeamGoals(), bet.getAwayTeamGoals());
+            int oldScore = bet.getScore() == null ? 0 : bet.getScore();
+            if (bet.getScore() == null || oldScore != score) {
+                betIdsByScore.computeIfAbsent(score, key -> new ArrayList<>()).add(bet.getId());
+                int exactHitsDelta = (score == EXACT_RESULT_SCORE ? 1 : 0) - (oldScore == EXACT_RESULT_SCORE ? 1 : 0);
+                if (score != oldScore || exactHitsDelta != 0) {
+                    userIdsByDelta.computeIfAbsent(new Tuple<>(score - oldScore, exactHitsDelta), key -> new ArrayList<>())
+                            .add(bet.getUserId());
+                    changes.add(new UserScoreChange(bet.getUserId(), score - oldScore, exactHitsDelta));
+                }
+            }
+        }
+        int updated = 0;
+        for (Map.Entry<Integer, List<Long>> entry : betIdsByScore.entrySet()) {
+            for (List<Long> chunk : chunks(entry.getValue())) {
+                updated += betRepository.setScore(entry.getKey(), chunk);
+            }
+        }
+        for (Map.Entry<Tuple<Integer, Integer>, List<Long>> entry : userIdsByDelta.entrySet()) {
+            for (List<Long> chunk : chunks(entry.getValue())) {
+                userRepository.addToTotalScore(entry.getKey().left, entry.getKey().right, chunk);
+            }
         }
-        logger.info("Bet scores updated.");
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new UserScoresChangedEvent(gameId, changes, LocalDateTime.now()));
+        }
+        logger.info("Bet scores of game " + gameId + " updated, " + updated + " bets changed.");
     }
 
-    private int calculateScore(Bet bet) {
-        int actualHomeTeamGoals = bet.getGame().getHomeTeamGoals();
-        int actualAwayTeamGoals = bet.getGame().getAwayTeamGoals();
-        int bettedHomeTeamGoals = bet.getHomeTeamGoals();
-        int bettedAwayTeamGoals = bet.getAwayTeamGoals();
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += SCORE_UPDATE_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + SCORE_UPDATE_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private int calculateScore(int actualHomeTeamGoals, int actualAwayTeamGoals, int bettedHomeTeamGoals, int bettedAwayTeamGoals) {
         int actualDifference = actualHomeTeamGoals - actualAwayTeamGoals;
         int bettedDifference = bettedHomeTeamGoals - bettedAwayTeamGoals;
         int score = 0;
@@ -63,18 +187,4 @@ public class Scorer {
         }
         return score;
     }
-
-    @Scheduled(cron = "50 */30 17-23 * * *")
-    @Transactional(propagation = Propagation.REQUIRED)
-    public void updateBetGroupScore() {
-        for (BetGroup betGroup : betGroupRepository.findAll()) {
-            double score = betGroup.getMembers().stream()
-                    .mapToInt(user -> user.getBets() == null ? 0 : user.getBets()
-                    .stream().mapToInt(bet -> bet.getScore() == null ? 0 : bet.getScore())
-                    .sum()).average().orElse(0);
-            betGroup.setScore((int) score);
-            betGroupRepository.save(betGroup);
-        }
-        logger.info("Group scores updated.");
-    }
 }
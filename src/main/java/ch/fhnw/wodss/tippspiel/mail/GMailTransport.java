@@ -0,0 +1,97 @@
+package ch.fhnw.wodss.tippspiel.mail;
+
+import ch.fhnw.wodss.tippspiel.util.GMail;
+import ch.fhnw.wodss.tippspiel.util.TokenBucket;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends through the shared Gmail client, no faster than the token bucket allows so that the sending quota of
+ * the mailbox isn't exceeded in the first place.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "gmail", matchIfMissing = true)
+public class GMailTransport implements MailTransport {
+
+    private static final long DEFAULT_RATE_LIMIT_PAUSE_MILLIS = 60000;
+
+    @Value("${mail.gmail.rate:2}")
+    private double RATE;
+    @Value("${mail.gmail.burst:5}")
+    private int BURST;
+
+    private final GMail gMail;
+    private final MeterRegistry meterRegistry;
+    private TokenBucket tokenBucket;
+    private Timer sendTimer;
+    private Timer throttleTimer;
+
+    @Autowired
+    public GMailTransport(GMail gMail, MeterRegistry meterRegistry) {
+        this.gMail = gMail;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        tokenBucket = new TokenBucket(RATE, BURST);
+        sendTimer = meterRegistry.timer("mail.gmail.send");
+        throttleTimer = meterRegistry.timer("mail.gmail.throttled");
+    }
+
+    @Override
+    public void send(MimeMessage message) throws MailTransportException {
+        try {
+            throttleTimer.record(tokenBucket.acquire(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailTransportException("Interrupted while waiting for the send rate", e);
+        }
+        long start = System.nanoTime();
+        try {
+            gMail.send(message);
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 401) gMail.reset();
+            if (isRateLimit(e)) {
+                throw new MailTransportException("Gmail rate limit reached", e, true, retryAfterMillis(e));
+            }
+            throw new MailTransportException("Gmail rejected the message: " + e.getStatusMessage(), e);
+        } catch (MessagingException | IOException e) {
+            throw new MailTransportException("Sending through Gmail failed: " + e.getMessage(), e);
+        } finally {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean isRateLimit(GoogleJsonResponseException e) {
+        if (e.getStatusCode() == 429) return true;
+        if (e.getStatusCode() != 403 || e.getDetails() == null || e.getDetails().getErrors() == null) return false;
+        for (GoogleJsonError.ErrorInfo error : e.getDetails().getErrors()) {
+            if ("rateLimitExceeded".equals(error.getReason()) || "userRateLimitExceeded".equals(error.getReason())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long retryAfterMillis(GoogleJsonResponseException e) {
+        String retryAfter = e.getHeaders() == null ? null : e.getHeaders().getRetryAfter();
+        try {
+            return retryAfter == null ? DEFAULT_RATE_LIMIT_PAUSE_MILLIS : Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException ignored) {
+            return DEFAULT_RATE_LIMIT_PAUSE_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ch.fhnw.wodss.tippspiel.mail;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the messages instead of sending them, for development without a mailbox.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "memory")
+public class InMemoryMailTransport implements MailTransport {
+
+    private final List<MimeMessage> sent = new ArrayList<>();
+
+    @Override
+    public synchronized void send(MimeMessage message) {
+        sent.add(message);
+    }
+
+    public synchronized List<MimeMessage> getSent() {
+        return new ArrayList<>(sent);
+    }
+
+    public synchronized void clear() {
+        sent.clear();
+    }
+}
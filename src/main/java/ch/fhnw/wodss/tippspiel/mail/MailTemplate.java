@@ -0,0 +1,55 @@
+package ch.fhnw.wodss.tippspiel.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mail text with numbered placeholders like {0}, split into its literal parts once so that rendering a message
+ * per recipient only concatenates. Unlike MessageFormat it is immutable and can be shared between threads, and
+ * values are inserted as they are, without locale specific number formatting.
+ */
+public class MailTemplate {
+
+    private final String[] literals;
+    private final int[] arguments;
+    private final int literalLength;
+
+    private MailTemplate(String[] literals, int[] arguments) {
+        this.literals = literals;
+        this.arguments = arguments;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static MailTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+        int from = 0;
+        int open = pattern.indexOf('{');
+        while (open >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0) throw new IllegalArgumentException("Unclosed placeholder in: " + pattern);
+            literals.add(pattern.substring(from, open));
+            try {
+                arguments.add(Integer.parseInt(pattern.substring(open + 1, close)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid placeholder in: " + pattern, e);
+            }
+            from = close + 1;
+            open = pattern.indexOf('{', from);
+        }
+        literals.add(pattern.substring(from));
+        int[] indexes = new int[arguments.size()];
+        for (int i = 0; i < indexes.length; i++) indexes[i] = arguments.get(i);
+        return new MailTemplate(literals.toArray(new String[0]), indexes);
+    }
+
+    public String render(Object... values) {
+        StringBuilder text = new StringBuilder(literalLength + 16 * arguments.length);
+        for (int i = 0; i < arguments.length; i++) {
+            text.append(literals[i]).append(values[arguments[i]]);
+        }
+        return text.append(literals[arguments.length]).toString();
+    }
+}
@@ -0,0 +1,11 @@
+package ch.fhnw.wodss.tippspiel.mail;
+
+import javax.mail.internet.MimeMessage;
+
+/**
+ * Delivers a single message. Selected with the mail.transport property, gmail by default.
+ */
+public interface MailTransport {
+
+    void send(MimeMessage message) throws MailTransportException;
+}
@@ -0,0 +1,27 @@
+package ch.fhnw.wodss.tippspiel.mail;
+
+/**
+ * A failed delivery. Rate limited failures carry the time to wait before anything else is sent.
+ */
+public class MailTransportException extends Exception {
+    private final boolean rateLimited;
+    private final long retryAfterMillis;
+
+    public MailTransportException(String message, Throwable cause) {
+        this(message, cause, false, 0);
+    }
+
+    public MailTransportException(String message, Throwable cause, boolean rateLimited, long retryAfterMillis) {
+        super(message, cause);
+        this.rateLimited = rateLimited;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public boolean isRateLimited() {
+        return rateLimited;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,45 @@
+package ch.fhnw.wodss.tippspiel.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Properties;
+
+/**
+ * Plain SMTP without authentication, meant for a local mail catcher in development and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "smtp")
+public class SmtpMailTransport implements MailTransport {
+
+    @Value("${mail.smtp.host:localhost}")
+    private String HOST;
+    @Value("${mail.smtp.port:1025}")
+    private int PORT;
+
+    private Session session;
+
+    @PostConstruct
+    public void createSession() {
+        Properties properties = new Properties();
+        properties.put("mail.smtp.host", HOST);
+        properties.put("mail.smtp.port", String.valueOf(PORT));
+        session = Session.getInstance(properties);
+    }
+
+    @Override
+    public void send(MimeMessage message) throws MailTransportException {
+        try (Transport transport = session.getTransport("smtp")) {
+            transport.connect();
+            transport.sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            throw new MailTransportException("Sending through SMTP failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * A single row of the bet group membership join table.
+ */
+public interface BetGroupMembershipView {
+
+    Long getUserId();
+
+    Long getBetGroupId();
+}
@@ -2,10 +2,13 @@ package ch.fhnw.wodss.tippspiel.persistance;
 
 import ch.fhnw.wodss.tippspiel.domain.BetGroup;
 import ch.fhnw.wodss.tippspiel.domain.User;
+import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +21,34 @@ public interface BetGroupRepository extends JpaRepository<BetGroup, Long> {
 
     boolean existsBetGroupsByMembersContaining(User user);
 
+    @Query("SELECT new ch.fhnw.wodss.tippspiel.dto.UserRankingDTO(m.id, m.name, m.totalScore, m.exactHits) " +
+            "FROM BetGroup g JOIN g.members m WHERE g.id = :betGroup ORDER BY m.totalScore DESC, m.exactHits DESC, m.id")
+    List<UserRankingDTO> getRanking(@Param("betGroup") Long betGroupId);
+
+    @Query("SELECT m.id AS userId, g.id AS betGroupId FROM BetGroup g JOIN g.members m WHERE m.id IN :userIds")
+    List<BetGroupMembershipView> getMemberships(@Param("userIds") List<Long> userIds);
+
+    @Query("SELECT g.id AS betGroupId, COUNT(m) AS memberCount, COALESCE(SUM(m.totalScore), 0) AS scoreSum, " +
+            "g.memberCount AS storedMemberCount, g.scoreSum AS storedScoreSum FROM BetGroup g LEFT JOIN g.members m " +
+            "GROUP BY g.id, g.memberCount, g.scoreSum")
+    List<BetGroupScoreView> getScoreSums();
+
+    /**
+     * Moves the score sum of all given groups by the same delta in one atomic UPDATE.
+     */
+    @Modifying
+    @Query("UPDATE BetGroup g SET g.scoreSum = g.scoreSum + :delta WHERE g.id IN :ids")
+    int addToScoreSum(@Param("delta") int delta, @Param("ids") Collection<Long> betGroupIds);
+
+    /**
+     * A member joined (count 1) or left (count -1) with the given total score.
+     */
+    @Modifying
+    @Query("UPDATE BetGroup g SET g.memberCount = g.memberCount + :count, g.scoreSum = g.scoreSum + :totalScore " +
+            "WHERE g.id = :id")
+    int addMember(@Param("id") Long betGroupId, @Param("count") int count, @Param("totalScore") int totalScore);
+
+    @Modifying
+    @Query("UPDATE BetGroup g SET g.memberCount = :memberCount, g.scoreSum = :scoreSum WHERE g.id = :id")
+    int setScoreSum(@Param("id") Long betGroupId, @Param("memberCount") int memberCount, @Param("scoreSum") int scoreSum);
 }
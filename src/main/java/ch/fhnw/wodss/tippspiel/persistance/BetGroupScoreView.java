@@ -0,0 +1,17 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * Member count and score sum of a bet group as summed up from its members, next to the stored running values.
+ */
+public interface BetGroupScoreView {
+
+    Long getBetGroupId();
+
+    Long getMemberCount();
+
+    Long getScoreSum();
+
+    Long getStoredMemberCount();
+
+    Long getStoredScoreSum();
+}
@@ -1,12 +1,11 @@
 package ch.fhnw.wodss.tippspiel.persistance;
 
 import ch.fhnw.wodss.tippspiel.domain.Bet;
-import ch.fhnw.wodss.tippspiel.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BetRepository extends JpaRepository<Bet, Long> {
@@ -15,17 +14,26 @@ public interface BetRepository extends JpaRepository<Bet, Long> {
 
     boolean existsBetByUser_IdAndGame_Id(Long userId, Long gameId);
 
-    List<Bet> getAllByGame_Id(Long gameId);
+    @Query("SELECT b.homeTeamGoals AS homeTeamGoals, b.awayTeamGoals AS awayTeamGoals, COUNT(b) AS count " +
+            "FROM Bet b WHERE b.game.id = :gameId GROUP BY b.homeTeamGoals, b.awayTeamGoals")
+    List<PredictedScoreView> getPredictedScores(@Param("gameId") Long gameId);
 
-    @Query("SELECT b FROM Bet b WHERE b.user = :betUser")
-    List<Bet> getBetsForUser(@Param("betUser") User user);
+    @Query("SELECT b.game.id AS gameId, b.homeTeamGoals AS homeTeamGoals, b.awayTeamGoals AS awayTeamGoals, COUNT(b) AS count " +
+            "FROM Bet b GROUP BY b.game.id, b.homeTeamGoals, b.awayTeamGoals")
+    List<GamePredictedScoreView> getPredictedScoresOfAllGames();
 
-    @Query("SELECT b FROM Bet b WHERE b.game.dateTime BETWEEN :start AND :end")
-    List<Bet> getTodayBets(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    @Query("SELECT b.id AS id, b.user.id AS userId, b.homeTeamGoals AS homeTeamGoals, b.awayTeamGoals AS awayTeamGoals, b.score AS score FROM Bet b WHERE b.game.id = :gameId")
+    List<BetScoreView> getScoreViewsByGame(@Param("gameId") Long gameId);
 
-    @Query("SELECT COUNT(b.score) FROM Bet b WHERE b.user = :user AND  b.game.dateTime BETWEEN :start AND :end")
-    int getTodayScore(@Param("user") User user, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    @Query("SELECT b.user.id AS userId, SUM(b.score) AS totalScore, " +
+            "SUM(CASE WHEN b.score = :exactHitScore THEN 1 ELSE 0 END) AS exactHits " +
+            "FROM Bet b WHERE b.score IS NOT NULL GROUP BY b.user.id")
+    List<UserScoreView> getScoreSumsByUser(@Param("exactHitScore") int exactHitScore);
 
-    @Query("SELECT COUNT(b.score) FROM Bet b WHERE  b.user = :user")
-    int getUserScore(@Param("user") User user);
+    @Modifying
+    @Query("UPDATE Bet b SET b.score = :score WHERE b.id IN :ids")
+    int setScore(@Param("score") Integer score, @Param("ids") List<Long> ids);
+
+    @Query("SELECT b FROM Bet b WHERE b.user.id = :userId")
+    List<Bet> getBetsForUser(@Param("userId") Long userId);
 }
@@ -0,0 +1,17 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * Scalar projection of a bet with just the columns needed for scoring, so no Bet entity graph has to be loaded.
+ */
+public interface BetScoreView {
+
+    Long getId();
+
+    Long getUserId();
+
+    Integer getHomeTeamGoals();
+
+    Integer getAwayTeamGoals();
+
+    Integer getScore();
+}
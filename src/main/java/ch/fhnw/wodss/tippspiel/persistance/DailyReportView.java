@@ -0,0 +1,15 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * A subscriber of the daily report with today's points, the total and rank come from the leaderboard.
+ */
+public interface DailyReportView {
+
+    Long getUserId();
+
+    String getEmail();
+
+    String getName();
+
+    Long getTodayPoints();
+}
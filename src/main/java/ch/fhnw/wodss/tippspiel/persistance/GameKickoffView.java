@@ -0,0 +1,13 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id and kickoff of a game without its teams, location and phase.
+ */
+public interface GameKickoffView {
+
+    Long getId();
+
+    LocalDateTime getDateTime();
+}
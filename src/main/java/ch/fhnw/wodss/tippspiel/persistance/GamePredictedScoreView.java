@@ -0,0 +1,9 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * Number of bets that predicted a certain exact score, for any game.
+ */
+public interface GamePredictedScoreView extends PredictedScoreView {
+
+    Long getGameId();
+}
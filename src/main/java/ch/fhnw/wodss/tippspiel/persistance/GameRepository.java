@@ -3,7 +3,11 @@ package ch.fhnw.wodss.tippspiel.persistance;
 import ch.fhnw.wodss.tippspiel.domain.Game;
 import ch.fhnw.wodss.tippspiel.domain.TournamentTeam;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +16,16 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     boolean existsGameByHomeTeamAndAwayTeamAndDateTimeEquals(TournamentTeam homeTeam, TournamentTeam awayTeam, LocalDateTime dateTime);
     List<Game> getAllByDateTimeIsBetween(LocalDateTime start, LocalDateTime end);
     Optional<Game> findFirstByHomeTeamEqualsAndAwayTeamEqualsAndDateTimeIsBetween(TournamentTeam homeTeamm, TournamentTeam awayTeam, LocalDateTime start, LocalDateTime end);
+
+    boolean existsByDateTimeBetweenAndHomeTeamGoalsIsNull(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * The game, locked until the end of the transaction, so that only one transaction at a time scores its bets.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g FROM Game g WHERE g.id = :id")
+    Optional<Game> findByIdForScoring(@Param("id") Long id);
+
+    @Query("SELECT g.id AS id, g.dateTime AS dateTime FROM Game g")
+    List<GameKickoffView> getKickoffs();
 }
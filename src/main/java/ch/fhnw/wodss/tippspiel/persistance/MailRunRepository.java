@@ -0,0 +1,23 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+import ch.fhnw.wodss.tippspiel.domain.MailRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface MailRunRepository extends JpaRepository<MailRun, String> {
+
+    /**
+     * Flags a closed run as reported, returns 0 if it isn't closed yet or was already reported by someone else.
+     * Runs on its own, the dispatcher also calls it right after the commit of the transaction that closed the run.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE MailRun r SET r.reportedAt = :now WHERE r.run = :run AND r.reportedAt IS NULL")
+    int markReported(@Param("run") String run, @Param("now") LocalDateTime now);
+}
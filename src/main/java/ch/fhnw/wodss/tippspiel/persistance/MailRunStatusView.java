@@ -0,0 +1,19 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+import ch.fhnw.wodss.tippspiel.domain.OutboxMail;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of mails of a run in one status, with the time the run was queued and its last send.
+ */
+public interface MailRunStatusView {
+
+    OutboxMail.Status getStatus();
+
+    Long getCount();
+
+    LocalDateTime getQueuedAt();
+
+    LocalDateTime getLastSentAt();
+}
@@ -0,0 +1,22 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+import ch.fhnw.wodss.tippspiel.domain.OutboxMail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    @Query("SELECT m FROM OutboxMail m WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.id")
+    List<OutboxMail> getDue(@Param("status") OutboxMail.Status status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByRunAndStatus(String run, OutboxMail.Status status);
+
+    @Query("SELECT m.status AS status, COUNT(m) AS count, MIN(m.createdAt) AS queuedAt, MAX(m.sentAt) AS lastSentAt " +
+            "FROM OutboxMail m WHERE m.run = :run GROUP BY m.status")
+    List<MailRunStatusView> getRunSummary(@Param("run") String run);
+}
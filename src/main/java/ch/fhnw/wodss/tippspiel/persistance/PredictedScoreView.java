@@ -0,0 +1,13 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * Number of bets that predicted a certain exact score of a game.
+ */
+public interface PredictedScoreView {
+
+    Integer getHomeTeamGoals();
+
+    Integer getAwayTeamGoals();
+
+    Long getCount();
+}
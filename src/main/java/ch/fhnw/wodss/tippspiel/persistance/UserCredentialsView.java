@@ -0,0 +1,15 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * What's needed to authenticate a user, without bets and bet groups.
+ */
+public interface UserCredentialsView {
+
+    Long getId();
+
+    String getEmail();
+
+    String getName();
+
+    String getPassword();
+}
@@ -0,0 +1,13 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * Address of a user who gets a mail, without loading the user's bets.
+ */
+public interface UserRecipientView {
+
+    Long getId();
+
+    String getEmail();
+
+    String getName();
+}
@@ -1,8 +1,14 @@
 package ch.fhnw.wodss.tippspiel.persistance;
 
 import ch.fhnw.wodss.tippspiel.domain.User;
+import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +18,54 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findUserByEmailEquals(String email);
 
-    List<User> findAllByRemindersTrue();
+    @Query("SELECT u.id AS id, u.email AS email, u.name AS name, u.password AS password FROM User u WHERE u.email = :email")
+    Optional<UserCredentialsView> getCredentialsByEmail(@Param("email") String email);
 
-    List<User> findAllByDailyResultsTrue();
+    @Query("SELECT r.name FROM User u JOIN u.roles r WHERE u.id = :id")
+    List<String> getRoleNames(@Param("id") Long id);
+
+    /**
+     * Users with reminders enabled who haven't bet on at least one of the games in the given time span, one page
+     * after the other ordered by id.
+     */
+    @Query("SELECT u.id AS id, u.email AS email, u.name AS name FROM User u WHERE u.reminders = true AND u.id > :afterId " +
+            "AND EXISTS (SELECT g.id FROM Game g WHERE g.dateTime BETWEEN :start AND :end " +
+            "AND NOT EXISTS (SELECT b.id FROM Bet b WHERE b.game = g AND b.user = u)) ORDER BY u.id")
+    List<UserRecipientView> getUsersToRemind(@Param("afterId") Long afterId, @Param("start") LocalDateTime start,
+                                             @Param("end") LocalDateTime end, Pageable pageable);
+
+    /**
+     * The users among the given ones who subscribed to results.
+     */
+    @Query("SELECT u.id AS id, u.email AS email, u.name AS name FROM User u WHERE u.dailyResults = true AND u.id IN :ids")
+    List<UserRecipientView> getResultRecipients(@Param("ids") List<Long> ids);
+
+    /**
+     * Today's points of all subscribers in one grouped query, one page after the other ordered by id.
+     */
+    @Query("SELECT u.id AS userId, u.email AS email, u.name AS name, " +
+            "COALESCE(SUM(CASE WHEN g.dateTime BETWEEN :start AND :end THEN b.score ELSE 0 END), 0) AS todayPoints " +
+            "FROM User u LEFT JOIN u.bets b LEFT JOIN b.game g " +
+            "WHERE u.dailyResults = true AND u.id > :afterId " +
+            "GROUP BY u.id, u.email, u.name ORDER BY u.id")
+    List<DailyReportView> getDailyReports(@Param("afterId") Long afterId, @Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end, Pageable pageable);
+
+    @Query("SELECT new ch.fhnw.wodss.tippspiel.dto.UserRankingDTO(u.id, u.name, u.totalScore, u.exactHits) FROM User u")
+    List<UserRankingDTO> getRanking();
+
+    @Modifying
+    @Query("UPDATE User u SET u.totalScore = u.totalScore + :scoreDelta, u.exactHits = u.exactHits + :exactHitsDelta WHERE u.id IN :ids")
+    int addToTotalScore(@Param("scoreDelta") int scoreDelta, @Param("exactHitsDelta") int exactHitsDelta, @Param("ids") List<Long> ids);
+
+    @Query("SELECT u.id AS userId, u.totalScore AS totalScore, u.exactHits AS exactHits FROM User u")
+    List<UserScoreView> getTotalScores();
+
+    @Modifying
+    @Query("UPDATE User u SET u.totalScore = :totalScore, u.exactHits = :exactHits WHERE u.id = :id")
+    int setTotalScore(@Param("id") Long id, @Param("totalScore") int totalScore, @Param("exactHits") int exactHits);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int setPassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,13 @@
+package ch.fhnw.wodss.tippspiel.persistance;
+
+/**
+ * Total score and exact hits of a user, either as materialized on the user or as summed up from the bets.
+ */
+public interface UserScoreView {
+
+    Long getUserId();
+
+    Long getTotalScore();
+
+    Long getExactHits();
+}
@@ -0,0 +1,14 @@
+package ch.fhnw.wodss.tippspiel.scraper;
+
+import lombok.Data;
+
+/**
+ * The raw page with the fixtures and the validators to ask for a newer version next time.
+ */
+@Data
+public class FixturePage {
+    private final byte[] body;
+    private final String charset;
+    private final String etag;
+    private final String lastModified;
+}
@@ -0,0 +1,21 @@
+package ch.fhnw.wodss.tippspiel.scraper;
+
+import java.io.IOException;
+
+/**
+ * Where the WikipediaScraper reads the fixtures from.
+ */
+public interface FixtureSource {
+
+    /**
+     * URL or path of the page, used as base URI for parsing and in log messages.
+     */
+    String getLocation();
+
+    /**
+     * @param etag         of the version read last time, or null
+     * @param lastModified of the version read last time, or null
+     * @return the page, or null if it wasn't modified since that version
+     */
+    FixturePage fetch(String etag, String lastModified) throws IOException;
+}
@@ -0,0 +1,61 @@
+package ch.fhnw.wodss.tippspiel.scraper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Saved copies of the page, for development and measurements without network access. The path is either a single
+ * snapshot or a directory whose snapshots are replayed in the order of their names, one per fetch, staying at the
+ * last one. The modification time of the file serves as Last-Modified.
+ */
+@Component
+@ConditionalOnProperty(name = "scraper.source", havingValue = "snapshot")
+public class SnapshotFixtureSource implements FixtureSource {
+
+    @Value("${scraper.snapshot.path}")
+    private String PATH;
+    @Value("${scraper.snapshot.charset:UTF-8}")
+    private String CHARSET;
+
+    private List<Path> snapshots;
+    private int next;
+
+    @PostConstruct
+    public void findSnapshots() throws IOException {
+        Path path = Paths.get(PATH);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                snapshots = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        } else {
+            snapshots = new ArrayList<>(Collections.singletonList(path));
+        }
+        if (snapshots.isEmpty()) throw new IllegalStateException("No page snapshots in " + PATH);
+    }
+
+    @Override
+    public String getLocation() {
+        return PATH;
+    }
+
+    @Override
+    public synchronized FixturePage fetch(String etag, String lastModified) throws IOException {
+        Path snapshot = snapshots.get(next);
+        if (next < snapshots.size() - 1) next++;
+        String modified = snapshot.getFileName() + "@" + Files.getLastModifiedTime(snapshot).toMillis();
+        if (modified.equals(lastModified)) return null;
+        return new FixturePage(Files.readAllBytes(snapshot), CHARSET, null, modified);
+    }
+}
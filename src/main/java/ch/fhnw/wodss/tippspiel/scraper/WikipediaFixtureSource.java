@@ -0,0 +1,47 @@
+package ch.fhnw.wodss.tippspiel.scraper;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.UncheckedIOException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * The live article, fetched with a conditional request. The timeout applies to connecting and again to reading the
+ * whole response, so a hanging server can't hold up the scraper for longer than twice the timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "scraper.source", havingValue = "wikipedia", matchIfMissing = true)
+public class WikipediaFixtureSource implements FixtureSource {
+
+    private static final String WIKIPEDIA_SEARCH_URL = "https://de.wikipedia.org/wiki/Fu%C3%9Fball-Weltmeisterschaft_2018";
+
+    @Value("${scraper.fetch.timeoutmillis:10000}")
+    private int TIMEOUT_MILLIS;
+
+    @Override
+    public String getLocation() {
+        return WIKIPEDIA_SEARCH_URL;
+    }
+
+    @Override
+    public FixturePage fetch(String etag, String lastModified) throws IOException {
+        Connection connection = Jsoup.connect(WIKIPEDIA_SEARCH_URL).userAgent("Mozilla/5.0").timeout(TIMEOUT_MILLIS);
+        if (etag != null) connection.header("If-None-Match", etag);
+        if (lastModified != null) connection.header("If-Modified-Since", lastModified);
+        Connection.Response response = connection.execute();
+        if (response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) return null;
+        byte[] body;
+        try {
+            // jsoup reads the body only here and wraps a read timeout in an unchecked exception
+            body = response.bodyAsBytes();
+        } catch (UncheckedIOException e) {
+            throw e.ioException();
+        }
+        return new FixturePage(body, response.charset(), response.header("ETag"), response.header("Last-Modified"));
+    }
+}
@@ -0,0 +1,125 @@
+package ch.fhnw.wodss.tippspiel.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the Argon2 parameters for the hardware the application runs on: the memory per hash is the configured
+ * memory budget shared by all hashing threads, the iterations are as many as fit into the target latency of a
+ * single hash. Runs at startup if enabled, or on demand through the argon2 actuator endpoint.
+ * <p>
+ * The result is written to the calibration file and used on every following start instead of measuring again,
+ * so the parameters stay the same across restarts until the next explicit calibration.
+ */
+@Component
+public class Argon2Calibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(Argon2Calibrator.class);
+    private static final int MIN_MEMORY = 8 * 1024;
+    private static final int SAMPLES = 3;
+    private static final int ADJUSTMENTS = 3;
+
+    @Value("${security.argon2.calibration.onstartup:false}")
+    private boolean ON_STARTUP;
+    @Value("${security.argon2.calibration.targetmillis:1000}")
+    private long TARGET_MILLIS;
+    @Value("${security.argon2.calibration.memorybudget:1048576}")
+    private int MEMORY_BUDGET;
+    @Value("${security.argon2.calibration.file:argon2-calibration.properties}")
+    private String FILE;
+
+    private final Argon2PasswordEncoder argon2PasswordEncoder;
+
+    @Autowired
+    public Argon2Calibrator(Argon2PasswordEncoder argon2PasswordEncoder) {
+        this.argon2PasswordEncoder = argon2PasswordEncoder;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void calibrateOnStartup() {
+        Argon2Parameters stored = load();
+        if (stored != null) {
+            argon2PasswordEncoder.setParameters(stored);
+            logger.info("Argon2 parameters " + stored + " loaded from " + FILE + ".");
+        } else if (ON_STARTUP) {
+            calibrate();
+        }
+    }
+
+    /**
+     * Measures, applies, stores and returns the new parameters.
+     */
+    public Argon2Parameters calibrate() {
+        int parallelism = argon2PasswordEncoder.getParameters().getParallelism();
+        int memory = Math.max(MIN_MEMORY, MEMORY_BUDGET / argon2PasswordEncoder.getPoolSize());
+        // the first run warms up the native library and the memory allocator
+        measure(1, memory, parallelism);
+        long perIteration = Math.max(1, measure(1, memory, parallelism));
+        int iterations = (int) Math.max(1, TARGET_MILLIS / perIteration);
+        for (int i = 0; i < ADJUSTMENTS && iterations > 1; i++) {
+            long millis = measure(iterations, memory, parallelism);
+            if (millis <= TARGET_MILLIS) break;
+            iterations = (int) Math.max(1, iterations * TARGET_MILLIS / millis);
+        }
+        Argon2Parameters parameters = new Argon2Parameters(iterations, memory, parallelism);
+        argon2PasswordEncoder.setParameters(parameters);
+        store(parameters);
+        logger.info("Argon2 calibrated to " + parameters + " for a target of " + TARGET_MILLIS + "ms per hash.");
+        return parameters;
+    }
+
+    /**
+     * Median time of a hash with the given parameters, in milliseconds.
+     */
+    private long measure(int iterations, int memory, int parallelism) {
+        long[] millis = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long nanos = argon2PasswordEncoder.benchmark(new Argon2Parameters(iterations, memory, parallelism));
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+        Arrays.sort(millis);
+        return millis[SAMPLES / 2];
+    }
+
+    private Argon2Parameters load() {
+        Path path = Paths.get(FILE);
+        if (!Files.isReadable(path)) return null;
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+            return new Argon2Parameters(Integer.parseInt(properties.getProperty("iterations")),
+                    Integer.parseInt(properties.getProperty("memory")),
+                    Integer.parseInt(properties.getProperty("parallelism")));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Can't read the Argon2 parameters from " + FILE + ": " + e);
+            return null;
+        }
+    }
+
+    private void store(Argon2Parameters parameters) {
+        Properties properties = new Properties();
+        properties.setProperty("iterations", String.valueOf(parameters.getIterations()));
+        properties.setProperty("memory", String.valueOf(parameters.getMemory()));
+        properties.setProperty("parallelism", String.valueOf(parameters.getParallelism()));
+        try (OutputStream out = Files.newOutputStream(Paths.get(FILE))) {
+            properties.store(out, "Argon2 parameters calibrated for this host");
+        } catch (IOException e) {
+            logger.warn("Can't store the Argon2 parameters in " + FILE + ", they will be measured again on the next start: " + e);
+        }
+    }
+}
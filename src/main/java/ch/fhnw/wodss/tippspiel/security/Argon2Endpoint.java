@@ -0,0 +1,34 @@
+package ch.fhnw.wodss.tippspiel.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shows the current Argon2 parameters under /actuator/argon2, a POST recalibrates them.
+ */
+@Component
+@Endpoint(id = "argon2")
+public class Argon2Endpoint {
+
+    private final Argon2PasswordEncoder argon2PasswordEncoder;
+    private final Argon2Calibrator argon2Calibrator;
+
+    @Autowired
+    public Argon2Endpoint(Argon2PasswordEncoder argon2PasswordEncoder, Argon2Calibrator argon2Calibrator) {
+        this.argon2PasswordEncoder = argon2PasswordEncoder;
+        this.argon2Calibrator = argon2Calibrator;
+    }
+
+    @ReadOperation
+    public Argon2Parameters parameters() {
+        return argon2PasswordEncoder.getParameters();
+    }
+
+    @WriteOperation
+    public Argon2Parameters calibrate() {
+        return argon2Calibrator.calibrate();
+    }
+}
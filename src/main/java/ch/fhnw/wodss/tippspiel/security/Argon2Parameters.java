@@ -0,0 +1,37 @@
+package ch.fhnw.wodss.tippspiel.security;
+
+import lombok.Data;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cost parameters of an Argon2 hash: iterations, memory in KiB and parallelism.
+ */
+@Data
+public class Argon2Parameters {
+
+    private static final Pattern ENCODED = Pattern.compile("\\$m=(\\d+),t=(\\d+),p=(\\d+)\\$");
+
+    private final int iterations;
+    private final int memory;
+    private final int parallelism;
+
+    /**
+     * The parameters an encoded hash was created with, or null if it isn't an Argon2 hash.
+     */
+    public static Argon2Parameters of(String encodedHash) {
+        if (encodedHash == null) return null;
+        Matcher matcher = ENCODED.matcher(encodedHash);
+        if (!matcher.find()) return null;
+        return new Argon2Parameters(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(1)),
+                Integer.parseInt(matcher.group(3)));
+    }
+
+    /**
+     * Whether any of the parameters is lower than in the other ones.
+     */
+    public boolean isWeakerThan(Argon2Parameters other) {
+        return iterations < other.iterations || memory < other.memory || parallelism < other.parallelism;
+    }
+}
@@ -1,11 +1,26 @@
 package ch.fhnw.wodss.tippspiel.security;
 
+import ch.fhnw.wodss.tippspiel.exception.ServiceBusyException;
 import de.mkammerer.argon2.Argon2;
 import de.mkammerer.argon2.Argon2Factory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes and verifies on a bounded pool of its own, so that a burst of logins can't occupy all request threads
+ * with second-long hashes. When the pool and its queue are full, the caller is rejected right away with a
+ * ServiceBusyException instead of waiting, the same happens when a hash isn't done within the timeout.
+ */
 @Component
 public class Argon2PasswordEncoder implements PasswordEncoder {
 
@@ -17,15 +32,130 @@ public class Argon2PasswordEncoder implements PasswordEncoder {
     private int MEMORY;
     @Value("${security.argon2.parallelism}")
     private int PARALLELISM;
+    @Value("${security.argon2.pool.size:0}")
+    private int POOL_SIZE;
+    @Value("${security.argon2.pool.queue:32}")
+    private int QUEUE_CAPACITY;
+    @Value("${security.argon2.pool.retryafter:5}")
+    private int RETRY_AFTER_SECONDS;
+    @Value("${security.argon2.pool.timeoutmillis:10000}")
+    private long TIMEOUT_MILLIS;
+    @Value("${security.argon2.calibration.timeoutmillis:60000}")
+    private long CALIBRATION_TIMEOUT_MILLIS;
+
+    private final MeterRegistry meterRegistry;
+    private volatile Argon2Parameters parameters;
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer calibrationTimer;
+    private Counter rejections;
+    private Counter timeouts;
+
+    @Autowired
+    public Argon2PasswordEncoder(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void startExecutor() {
+        parameters = new Argon2Parameters(ITERATIONS, MEMORY, PARALLELISM);
+        int poolSize = POOL_SIZE > 0 ? POOL_SIZE : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "argon2-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        encodeTimer = meterRegistry.timer("argon2.hash", "operation", "encode");
+        matchesTimer = meterRegistry.timer("argon2.hash", "operation", "matches");
+        calibrationTimer = meterRegistry.timer("argon2.hash", "operation", "calibrate");
+        rejections = meterRegistry.counter("argon2.rejected");
+        timeouts = meterRegistry.counter("argon2.timeouts");
+        meterRegistry.gauge("argon2.queue.depth", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("argon2.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
 
     @Override
     public String encode(CharSequence rawPassword) {
-        final String hash = ARGON2.hash(ITERATIONS, MEMORY, PARALLELISM, rawPassword.toString());
-        return hash;
+        String password = rawPassword.toString();
+        Argon2Parameters cost = parameters;
+        return execute(() -> ARGON2.hash(cost.getIterations(), cost.getMemory(), cost.getParallelism(), password),
+                encodeTimer, TIMEOUT_MILLIS);
     }
 
     @Override
     public boolean matches(CharSequence rawPassword, String encodedPassword) {
-        return ARGON2.verify(encodedPassword, rawPassword.toString());
+        String password = rawPassword.toString();
+        return execute(() -> ARGON2.verify(encodedPassword, password), matchesTimer, TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Nanoseconds a hash with the given parameters takes, measured on the pool like any other hash.
+     */
+    public long benchmark(Argon2Parameters cost) {
+        return execute(() -> {
+            long start = System.nanoTime();
+            ARGON2.hash(cost.getIterations(), cost.getMemory(), cost.getParallelism(), "calibration-sample-password");
+            return System.nanoTime() - start;
+        }, calibrationTimer, CALIBRATION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Whether the hash was created with a lower memory, iteration or parallelism setting than the current one and
+     * should be rehashed. Hashes that are at least as strong are kept, so slightly different or cheaper parameters
+     * after a recalibration don't make every user pay for a second hash.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        Argon2Parameters used = Argon2Parameters.of(encodedPassword);
+        return used != null && used.isWeakerThan(parameters);
+    }
+
+    public Argon2Parameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Applies to new hashes only, existing ones are upgraded on the next login.
+     */
+    public void setParameters(Argon2Parameters parameters) {
+        this.parameters = parameters;
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    private <T> T execute(Callable<T> hashing, Timer timer, long timeoutMillis) {
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.recordCallable(hashing));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new ServiceBusyException("Too many logins at the moment, please try again shortly.", RETRY_AFTER_SECONDS);
+        }
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // drops the hash if it is still queued, a running native hash can't be stopped and finishes unused
+            result.cancel(true);
+            timeouts.increment();
+            throw new ServiceBusyException("Too many logins at the moment, please try again shortly.", RETRY_AFTER_SECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
     }
 }
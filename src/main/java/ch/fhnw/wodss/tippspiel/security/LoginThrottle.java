@@ -0,0 +1,114 @@
+package ch.fhnw.wodss.tippspiel.security;
+
+import ch.fhnw.wodss.tippspiel.exception.TooManyRequestsException;
+import ch.fhnw.wodss.tippspiel.util.SlidingWindowLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Locale;
+
+/**
+ * Limits login attempts per client IP and per account before any password is verified, so that a few clients
+ * can't keep all cores busy with Argon2. Every attempt from an IP counts, since each costs a hash. An account
+ * only counts failed attempts and a successful login clears them, so that logging in often is never throttled.
+ * The account slot is reserved when the attempt starts, so that parallel attempts can't all pass the limit before
+ * the first of them has failed.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottle.class);
+
+    @Value("${security.login.throttle.account:10}")
+    private int ACCOUNT_LIMIT;
+    @Value("${security.login.throttle.ip:30}")
+    private int IP_LIMIT;
+    @Value("${security.login.throttle.windowseconds:60}")
+    private int WINDOW_SECONDS;
+
+    private final MeterRegistry meterRegistry;
+    private SlidingWindowLimiter accountLimiter;
+    private SlidingWindowLimiter ipLimiter;
+    private Counter accountRejections;
+    private Counter ipRejections;
+
+    @Autowired
+    public LoginThrottle(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    LoginThrottle(MeterRegistry meterRegistry, int accountLimit, int ipLimit, int windowSeconds) {
+        this(meterRegistry);
+        ACCOUNT_LIMIT = accountLimit;
+        IP_LIMIT = ipLimit;
+        WINDOW_SECONDS = windowSeconds;
+        initLimiters();
+    }
+
+    @PostConstruct
+    public void initLimiters() {
+        accountLimiter = new SlidingWindowLimiter(ACCOUNT_LIMIT, WINDOW_SECONDS * 1000L);
+        ipLimiter = new SlidingWindowLimiter(IP_LIMIT, WINDOW_SECONDS * 1000L);
+        accountRejections = meterRegistry.counter("login.throttled", "by", "account");
+        ipRejections = meterRegistry.counter("login.throttled", "by", "ip");
+    }
+
+    /**
+     * Registers a login attempt or throws a TooManyRequestsException if the IP or the account is over its limit.
+     * The attempt counts as failed for the account unless it is reported with {@link #succeeded(String)} or
+     * {@link #released(String)}.
+     */
+    public void acquire(String username, String remoteAddress) {
+        long now = System.currentTimeMillis();
+        if (remoteAddress != null) {
+            long wait = ipLimiter.tryAcquire(remoteAddress, now);
+            if (wait > 0) {
+                ipRejections.increment();
+                logger.warn("Login attempts from " + remoteAddress + " throttled.");
+                throw rejection(wait);
+            }
+        }
+        if (username != null) {
+            long wait = accountLimiter.tryAcquire(accountKey(username), now);
+            if (wait > 0) {
+                accountRejections.increment();
+                logger.warn("Login attempts for " + username + " throttled.");
+                throw rejection(wait);
+            }
+        }
+    }
+
+    /**
+     * Gives back the account slot of an attempt that failed for another reason than wrong credentials.
+     */
+    public void released(String username) {
+        if (username != null) accountLimiter.release(accountKey(username));
+    }
+
+    public void succeeded(String username) {
+        if (username != null) accountLimiter.reset(accountKey(username));
+    }
+
+    @Scheduled(fixedRate = 600000)
+    public void purge() {
+        long now = System.currentTimeMillis();
+        ipLimiter.purge(now);
+        accountLimiter.purge(now);
+    }
+
+    private String accountKey(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private TooManyRequestsException rejection(long waitMillis) {
+        return new TooManyRequestsException("Too many login attempts, please try again later.",
+                (int) Math.max(1, (waitMillis + 999) / 1000));
+    }
+}
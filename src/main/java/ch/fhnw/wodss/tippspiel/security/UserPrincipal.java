@@ -0,0 +1,117 @@
+package ch.fhnw.wodss.tippspiel.security;
+
+import ch.fhnw.wodss.tippspiel.domain.Role;
+import ch.fhnw.wodss.tippspiel.domain.User;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.*;
+
+/**
+ * The authenticated user as kept in the session: only id, email, name and roles instead of the user entity with
+ * all its bets. Services load the entity themselves where they need more. The password hash is only held until
+ * the authentication is complete.
+ */
+public final class UserPrincipal implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String email;
+    private final String name;
+    private final Set<GrantedAuthority> authorities;
+    private String password;
+
+    public UserPrincipal(Long id, String email, String name, String password, Collection<String> roles) {
+        this.id = id;
+        this.email = email;
+        this.name = name;
+        this.password = password;
+        Set<GrantedAuthority> grantedAuthorities = new HashSet<>();
+        for (String role : roles) {
+            grantedAuthorities.add(new SimpleGrantedAuthority(role));
+        }
+        this.authorities = Collections.unmodifiableSet(grantedAuthorities);
+    }
+
+    public static UserPrincipal of(User user) {
+        List<String> roles = new ArrayList<>();
+        if (user.getRoles() != null) {
+            for (Role role : user.getRoles()) {
+                roles.add(role.getName());
+            }
+        }
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getName(), user.getPassword(), roles);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) return true;
+        if (!(other instanceof UserPrincipal)) return false;
+        return Objects.equals(id, ((UserPrincipal) other).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
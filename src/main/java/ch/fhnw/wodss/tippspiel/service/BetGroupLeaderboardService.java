@@ -0,0 +1,85 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
+import ch.fhnw.wodss.tippspiel.event.BetGroupsChangedEvent;
+import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ranking of the members of a bet group. The complete ranking of a group is read with a single scalar query
+ * and cached until the group's members or scores change, pages are cut from the cached list.
+ */
+@Service
+public class BetGroupLeaderboardService {
+
+    public static final String CACHE_NAME = "betGroupRankings";
+    private static final String BET_GROUP_CACHE_NAME = "betGroups";
+
+    private final BetGroupRepository betGroupRepository;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public BetGroupLeaderboardService(BetGroupRepository betGroupRepository, CacheManager cacheManager) {
+        this.betGroupRepository = betGroupRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<LeaderboardEntryDTO> getPage(Long betGroupId, int page, int size) {
+        if (page < 0) throw new IllegalActionException("Page must not be negative");
+        if (size < 1 || size > LeaderboardService.MAX_PAGE_SIZE) {
+            throw new IllegalActionException("Page size must be between 1 and " + LeaderboardService.MAX_PAGE_SIZE);
+        }
+        List<LeaderboardEntryDTO> ranking = getRanking(betGroupId);
+        // bet groups without members are deleted, so an empty ranking means there is no such group
+        if (ranking.isEmpty()) throw new ResourceNotFoundException("Can't find a bet group with id: " + betGroupId);
+        long from = (long) page * size;
+        if (from >= ranking.size()) return new ArrayList<>();
+        return new ArrayList<>(ranking.subList((int) from, (int) Math.min(from + size, ranking.size())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBetGroupsChanged(BetGroupsChangedEvent event) {
+        Cache rankings = cacheManager.getCache(CACHE_NAME);
+        Cache betGroups = cacheManager.getCache(BET_GROUP_CACHE_NAME);
+        for (Long betGroupId : event.getBetGroupIds()) {
+            if (rankings != null) rankings.evict(betGroupId);
+            if (betGroups != null) betGroups.evict(betGroupId);
+        }
+    }
+
+    private List<LeaderboardEntryDTO> getRanking(Long betGroupId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) return loadRanking(betGroupId);
+        return cache.get(betGroupId, () -> loadRanking(betGroupId));
+    }
+
+    /**
+     * Members with the same score and exact hits share a rank.
+     */
+    private List<LeaderboardEntryDTO> loadRanking(Long betGroupId) {
+        List<LeaderboardEntryDTO> ranking = new ArrayList<>();
+        LeaderboardEntryDTO previous = null;
+        for (UserRankingDTO member : betGroupRepository.getRanking(betGroupId)) {
+            boolean tie = previous != null && previous.getScore().equals(member.getScore())
+                    && previous.getExactHits().equals(member.getExactHits());
+            int rank = tie ? previous.getRank() : ranking.size() + 1;
+            previous = new LeaderboardEntryDTO(rank, member.getId(), member.getName(), member.getScore(), member.getExactHits());
+            ranking.add(previous);
+        }
+        return Collections.unmodifiableList(ranking);
+    }
+}
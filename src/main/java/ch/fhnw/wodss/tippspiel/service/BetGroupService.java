@@ -3,38 +3,59 @@ package ch.fhnw.wodss.tippspiel.service;
 import ch.fhnw.wodss.tippspiel.domain.BetGroup;
 import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetGroupDTO;
+import ch.fhnw.wodss.tippspiel.dto.BetGroupInviteDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestBetGroupDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserAllBetGroupDTO;
+import ch.fhnw.wodss.tippspiel.event.BetGroupsChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserScoreChange;
+import ch.fhnw.wodss.tippspiel.event.UserScoresChangedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotAllowedException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.persistance.BetGroupMembershipView;
 import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
 import ch.fhnw.wodss.tippspiel.security.Argon2PasswordEncoder;
+import ch.fhnw.wodss.tippspiel.security.BetGroupInviteSigner;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
 public class BetGroupService {
 
+    private static final int MEMBERSHIP_CHUNK_SIZE = 1000;
     private final BetGroupRepository betGroupRepository;
     private final UserRepository userRepository;
     private final Argon2PasswordEncoder argon2PasswordEncoder;
+    private final BetGroupInviteSigner inviteSigner;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public BetGroupService(BetGroupRepository betGroupRepository, UserRepository userRepository, Argon2PasswordEncoder argon2PasswordEncoder) {
+    public BetGroupService(BetGroupRepository betGroupRepository, UserRepository userRepository, Argon2PasswordEncoder argon2PasswordEncoder,
+                           BetGroupInviteSigner inviteSigner, ApplicationEventPublisher eventPublisher) {
         this.betGroupRepository = betGroupRepository;
         this.userRepository = userRepository;
         this.argon2PasswordEncoder = argon2PasswordEncoder;
+        this.inviteSigner = inviteSigner;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
@@ -64,51 +85,56 @@ public class BetGroupService {
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public BetGroupDTO addUser(Long betGroupId, String password, User user) {
-        userRepository.findById(user.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Could not find given user."));
-        BetGroup betGroup = betGroupRepository.findById(betGroupId)
-                .orElseThrow(() -> new ResourceNotFoundException("Could not find bet group with id: " + betGroupId));
-        boolean containsUser = betGroupRepository.existsBetGroupsByMembersContaining(user);
-        if (!containsUser) {
+    public BetGroupDTO addUser(Long betGroupId, String password, UserPrincipal user) {
+        return join(betGroupId, user, betGroup -> {
             if (betGroup.getPassword() != null) {
                 if (password == null || !argon2PasswordEncoder.matches(password, betGroup.getPassword())) {
                     throw new ResourceNotAllowedException("Wrong password for this bet group!");
                 }
             }
-            List<User> users = betGroup.getMembers();
-            users.add(user);
-            betGroup.setMembers(users);
-            betGroup.setId(betGroupId);
-            betGroup = betGroupRepository.saveAndFlush(betGroup);
-            user = userRepository.findById(user.getId()).get();
-            List<BetGroup> betGroups = user.getBetGroups();
-            betGroups.add(betGroup);
-            user.setBetGroups(betGroups);
-            userRepository.save(user);
-            return convertBetGroupToBetGroupDTO(betGroup);
-        } else {
-            throw new IllegalActionException("User with name: " + user.getName() + " is already part of the given bet group.");
-        }
+        });
     }
 
+    /**
+     * Joins with an invite token instead of the group password, which skips the Argon2 check.
+     */
     @Transactional(propagation = Propagation.REQUIRED)
-    public void removeUserFromBetGroup(Long betGroupId, User user) {
-        userRepository.findById(user.getId())
+    public BetGroupDTO addUserWithInvite(Long betGroupId, String inviteToken, UserPrincipal user) {
+        return join(betGroupId, user, betGroup -> {
+            if (!inviteSigner.isValid(inviteToken, betGroupId)) {
+                throw new ResourceNotAllowedException("Invalid or expired invite for this bet group!");
+            }
+        });
+    }
+
+    /**
+     * Any member can invite others, the token is valid for the configured number of hours.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public BetGroupInviteDTO createInvite(Long betGroupId, UserPrincipal user) {
+        boolean isMember = betGroupRepository.getMemberships(Collections.singletonList(user.getId())).stream()
+                .anyMatch(membership -> membership.getBetGroupId().equals(betGroupId));
+        if (!isMember) throw new ResourceNotAllowedException("Only members can invite to a bet group!");
+        Instant expiry = inviteSigner.expiryFromNow();
+        return new BetGroupInviteDTO(betGroupId, inviteSigner.sign(betGroupId, expiry), Date.from(expiry));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void removeUserFromBetGroup(Long betGroupId, UserPrincipal user) {
+        User member = userRepository.findById(user.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Could not find given user."));
         BetGroup betGroup = betGroupRepository.findById(betGroupId)
                 .orElseThrow(() -> new ResourceNotFoundException("Could not find bet group with id: " + betGroupId));
-        boolean containsUser = betGroupRepository.existsBetGroupsByMembersContaining(user);
-        if (containsUser) {
-            List<User> users = betGroup.getMembers();
-            users.remove(user);
-            betGroup.setMembers(users);
+        // only a member of this group can leave it, the sums of other groups stay untouched
+        if (betGroup.getMembers().remove(member)) {
+            betGroup.memberLeft(member.getTotalScore());
             betGroupRepository.saveAndFlush(betGroup);
-            user = userRepository.findById(user.getId()).get();
-            List<BetGroup> betGroups = user.getBetGroups();
+            betGroupRepository.addMember(betGroupId, -1, -member.getTotalScore());
+            List<BetGroup> betGroups = member.getBetGroups();
             betGroups.remove(betGroup);
-            user.setBetGroups(betGroups);
-            userRepository.save(user);
+            member.setBetGroups(betGroups);
+            userRepository.save(member);
+            eventPublisher.publishEvent(new BetGroupsChangedEvent(Collections.singletonList(betGroupId)));
             if (betGroup.getMembers().isEmpty()) {
                 deleteBetGroup(betGroupId);
             }
@@ -116,7 +142,7 @@ public class BetGroupService {
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public BetGroupDTO createBetGroup(RestBetGroupDTO restBetGroupDTO, User user) {
+    public BetGroupDTO createBetGroup(RestBetGroupDTO restBetGroupDTO, UserPrincipal user) {
         if (betGroupRepository.findBetGroupByNameEquals(restBetGroupDTO.getName()).isPresent()) {
             throw new IllegalActionException("A bet group with name: " + restBetGroupDTO.getName() + " already exists.");
         }
@@ -125,17 +151,79 @@ public class BetGroupService {
         if (restBetGroupDTO.getPassword() != null) {
             betGroup.setPassword(argon2PasswordEncoder.encode(restBetGroupDTO.getPassword()));
         }
+        User member = userRepository.findById(user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Could not find given user."));
         List<User> members = new ArrayList<>();
-        members.add(user);
+        members.add(member);
         betGroup.setMembers(members);
+        betGroup.memberJoined(member.getTotalScore());
         betGroup = betGroupRepository.save(betGroup);
-        List<BetGroup> betGroups = new ArrayList<>();
+        List<BetGroup> betGroups = member.getBetGroups();
         betGroups.add(betGroup);
-        user.setBetGroups(betGroups);
-        userRepository.save(user);
+        member.setBetGroups(betGroups);
+        userRepository.save(member);
+        eventPublisher.publishEvent(new BetGroupsChangedEvent(Collections.singletonList(betGroup.getId())));
         return convertBetGroupToBetGroupDTO(betGroup);
     }
 
+    /**
+     * Moves the running score sums of the groups of all users whose total changed, in the transaction that
+     * scored the bets. Groups are updated atomically with one UPDATE per distinct delta, so a member joining or
+     * leaving at the same time isn't lost.
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void onUserScoresChanged(UserScoresChangedEvent event) {
+        Map<Long, Integer> deltaByUser = new HashMap<>();
+        for (UserScoreChange change : event.getChanges()) {
+            if (change.getScoreDelta() != 0) deltaByUser.put(change.getUserId(), change.getScoreDelta());
+        }
+        List<Long> userIds = new ArrayList<>(deltaByUser.keySet());
+        Map<Long, Integer> deltaByBetGroup = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += MEMBERSHIP_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + MEMBERSHIP_CHUNK_SIZE, userIds.size()));
+            for (BetGroupMembershipView membership : betGroupRepository.getMemberships(chunk)) {
+                deltaByBetGroup.merge(membership.getBetGroupId(), deltaByUser.get(membership.getUserId()), Integer::sum);
+            }
+        }
+        if (deltaByBetGroup.isEmpty()) return;
+        Map<Integer, List<Long>> betGroupIdsByDelta = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : deltaByBetGroup.entrySet()) {
+            if (entry.getValue() != 0) {
+                betGroupIdsByDelta.computeIfAbsent(entry.getValue(), key -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        for (Map.Entry<Integer, List<Long>> entry : betGroupIdsByDelta.entrySet()) {
+            betGroupRepository.addToScoreSum(entry.getKey(), entry.getValue());
+        }
+        eventPublisher.publishEvent(new BetGroupsChangedEvent(deltaByBetGroup.keySet()));
+    }
+
+    private BetGroupDTO join(Long betGroupId, UserPrincipal user, Consumer<BetGroup> admission) {
+        User member = userRepository.findById(user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Could not find given user."));
+        BetGroup betGroup = betGroupRepository.findById(betGroupId)
+                .orElseThrow(() -> new ResourceNotFoundException("Could not find bet group with id: " + betGroupId));
+        if (!betGroup.getMembers().contains(member)) {
+            admission.accept(betGroup);
+            List<User> users = betGroup.getMembers();
+            users.add(member);
+            betGroup.setMembers(users);
+            betGroup.memberJoined(member.getTotalScore());
+            betGroup.setId(betGroupId);
+            betGroup = betGroupRepository.saveAndFlush(betGroup);
+            betGroupRepository.addMember(betGroupId, 1, member.getTotalScore());
+            List<BetGroup> betGroups = member.getBetGroups();
+            betGroups.add(betGroup);
+            member.setBetGroups(betGroups);
+            userRepository.save(member);
+            eventPublisher.publishEvent(new BetGroupsChangedEvent(Collections.singletonList(betGroupId)));
+            return convertBetGroupToBetGroupDTO(betGroup);
+        } else {
+            throw new IllegalActionException("User with name: " + user.getName() + " is already part of the given bet group.");
+        }
+    }
+
     private void deleteBetGroup(Long id) {
         Optional<BetGroup> betGroup = betGroupRepository.findById(id);
         if (!betGroup.isPresent()) throw new ResourceNotFoundException("Can't find a bet group with id: " + id);
@@ -151,7 +239,7 @@ public class BetGroupService {
             UserAllBetGroupDTO dto = new UserAllBetGroupDTO();
             dto.setId(user.getId());
             dto.setName(user.getName());
-            dto.setScore(user.getBets().stream().mapToInt(bet -> bet.getScore() == null ? 0 : bet.getScore()).sum());
+            dto.setScore(user.getTotalScore());
             dtos.add(dto);
         }
         return dtos;
@@ -5,6 +5,7 @@ import ch.fhnw.wodss.tippspiel.domain.Game;
 import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestBetDTO;
+import ch.fhnw.wodss.tippspiel.event.BetChangedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceAlreadyExistsException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotAllowedException;
@@ -12,7 +13,9 @@ import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
 import ch.fhnw.wodss.tippspiel.persistance.BetRepository;
 import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
@@ -31,16 +34,18 @@ public class BetService {
     private final BetRepository betRepository;
     private final GameRepository gameRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public BetService(BetRepository betRepository, GameRepository gameRepository, UserRepository userRepository) {
+    public BetService(BetRepository betRepository, GameRepository gameRepository, UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.betRepository = betRepository;
         this.gameRepository = gameRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
-    public BetDTO getBetById(Long id, User user) {
+    public BetDTO getBetById(Long id, UserPrincipal user) {
         Optional<Bet> bet = betRepository.findById(id);
         long betOwner = bet.orElseThrow(() -> new ResourceNotFoundException("Could not find Bet with id: " + id))
                 .getUser().getId();
@@ -50,18 +55,18 @@ public class BetService {
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public BetDTO addBet(RestBetDTO restBetDTO, User user) {
+    public BetDTO addBet(RestBetDTO restBetDTO, UserPrincipal principal) {
         Game game = gameRepository.findById(restBetDTO.getGameId())
                 .orElseThrow(() -> new ResourceNotFoundException("Could not find Game in Bet with id: "
                         + restBetDTO.getGameId()));
-        boolean alreadyBettedByUser = betRepository.existsBetByUser_IdAndGame_Id(user.getId(), game.getId());
+        boolean alreadyBettedByUser = betRepository.existsBetByUser_IdAndGame_Id(principal.getId(), game.getId());
         if (alreadyBettedByUser)
             throw new ResourceAlreadyExistsException("A bet for this game and user already exists!");
 
         LocalDateTime now = LocalDateTime.now(ZoneId.of("Europe/Paris"));
         // Check if date time before game start time
         if (game.getDateTime().isAfter(now)) {
-            user = userRepository.findById(user.getId()).get();
+            User user = userRepository.findById(principal.getId()).get();
             Bet bet = new Bet();
             bet.setGame(game);
             bet.setUser(user);
@@ -72,6 +77,8 @@ public class BetService {
             user.setBets(bets);
             userRepository.save(user);
             bet = betRepository.save(bet);
+            eventPublisher.publishEvent(new BetChangedEvent(game.getId(), null, null,
+                    bet.getHomeTeamGoals(), bet.getAwayTeamGoals()));
             return convertBetToBetDTO(bet);
         } else {
             throw new IllegalActionException("The game has started. The bet can't be accepted.");
@@ -79,7 +86,7 @@ public class BetService {
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public BetDTO updateBet(Long id, RestBetDTO restBetDTO, User user) {
+    public BetDTO updateBet(Long id, RestBetDTO restBetDTO, UserPrincipal user) {
         Optional<Bet> betToUpdate = betRepository.findById(id);
         if (!betToUpdate.isPresent()) {
             throw new ResourceNotFoundException("No bet was found to change");
@@ -96,9 +103,12 @@ public class BetService {
         // Check if date time before game start time
         if (game.getDateTime().isAfter(now)) {
             Bet bet = betToUpdate.get();
+            BetChangedEvent event = new BetChangedEvent(bet.getGame().getId(), bet.getHomeTeamGoals(),
+                    bet.getAwayTeamGoals(), restBetDTO.getHomeTeamGoals(), restBetDTO.getAwayTeamGoals());
             bet.setHomeTeamGoals(restBetDTO.getHomeTeamGoals());
             bet.setAwayTeamGoals(restBetDTO.getAwayTeamGoals());
             bet = betRepository.save(bet);
+            eventPublisher.publishEvent(event);
             return convertBetToBetDTO(bet);
         } else {
             throw new IllegalActionException("The game has started. The bet can't be updated.");
@@ -106,7 +116,7 @@ public class BetService {
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public void deleteBet(Long id, User user) {
+    public void deleteBet(Long id, UserPrincipal user) {
         Bet bet = betRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Could not find Bet with id: " + id));
         Game game = gameRepository.findById(bet.getGame().getId())
@@ -121,17 +131,16 @@ public class BetService {
         // Check if date time before game start time
         if (game.getDateTime().isAfter(now)) {
             betRepository.deleteById(id);
-            List<Bet> bets = user.getBets();
-            bets.remove(bet);
-            userRepository.save(user);
+            eventPublisher.publishEvent(new BetChangedEvent(game.getId(), bet.getHomeTeamGoals(),
+                    bet.getAwayTeamGoals(), null, null));
         } else {
             throw new IllegalActionException("The game has started. The bet can't be deleted.");
         }
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
-    public List<BetDTO> getBetsForUser(User user) {
-        List<Bet> bets = betRepository.getBetsForUser(user);
+    public List<BetDTO> getBetsForUser(UserPrincipal user) {
+        List<Bet> bets = betRepository.getBetsForUser(user.getId());
         List<BetDTO> betsDTO = new ArrayList<>();
         for (Bet bet : bets) {
             betsDTO.add(convertBetToBetDTO(bet));
@@ -0,0 +1,69 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.dto.PredictedScoreDTO;
+import ch.fhnw.wodss.tippspiel.dto.StatistikDTO;
+import ch.fhnw.wodss.tippspiel.util.Tuple;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prediction counters of a single game. They are LongAdders, so concurrent bet writes neither contend on a
+ * single counter nor get lost.
+ */
+class GameBetCounters {
+
+    private final LongAdder homeWin = new LongAdder();
+    private final LongAdder draw = new LongAdder();
+    private final LongAdder homeLose = new LongAdder();
+    private final LongAdder homeTeamGoals = new LongAdder();
+    private final LongAdder awayTeamGoals = new LongAdder();
+    private final ConcurrentMap<Tuple<Integer, Integer>, LongAdder> scores = new ConcurrentHashMap<>();
+
+    /**
+     * Counts count bets with the given prediction, a negative count removes them.
+     */
+    void add(int predictedHomeTeamGoals, int predictedAwayTeamGoals, long count) {
+        if (predictedHomeTeamGoals > predictedAwayTeamGoals) {
+            homeWin.add(count);
+        } else if (predictedHomeTeamGoals < predictedAwayTeamGoals) {
+            homeLose.add(count);
+        } else {
+            draw.add(count);
+        }
+        homeTeamGoals.add(predictedHomeTeamGoals * count);
+        awayTeamGoals.add(predictedAwayTeamGoals * count);
+        scores.computeIfAbsent(new Tuple<>(predictedHomeTeamGoals, predictedAwayTeamGoals), key -> new LongAdder()).add(count);
+    }
+
+    StatistikDTO toStatistikDTO(int topScores) {
+        long homeWins = homeWin.sum();
+        long draws = draw.sum();
+        long homeLosses = homeLose.sum();
+        long bets = homeWins + draws + homeLosses;
+        List<PredictedScoreDTO> predictedScores = new ArrayList<>();
+        for (Map.Entry<Tuple<Integer, Integer>, LongAdder> score : scores.entrySet()) {
+            long count = score.getValue().sum();
+            if (count > 0) {
+                predictedScores.add(new PredictedScoreDTO(score.getKey().left, score.getKey().right, (int) count));
+            }
+        }
+        predictedScores.sort(Comparator.comparing(PredictedScoreDTO::getCount).reversed()
+                .thenComparing(PredictedScoreDTO::getHomeTeamGoals)
+                .thenComparing(PredictedScoreDTO::getAwayTeamGoals));
+        StatistikDTO statistikDTO = new StatistikDTO();
+        statistikDTO.setGameStarted(true);
+        statistikDTO.setHomeWin((int) homeWins);
+        statistikDTO.setDraw((int) draws);
+        statistikDTO.setHomeLose((int) homeLosses);
+        statistikDTO.setAverageHomeTeamGoals(bets == 0 ? 0 : (double) homeTeamGoals.sum() / bets);
+        statistikDTO.setAverageAwayTeamGoals(bets == 0 ? 0 : (double) awayTeamGoals.sum() / bets);
+        statistikDTO.setTopScores(new ArrayList<>(predictedScores.subList(0, Math.min(topScores, predictedScores.size()))));
+        return statistikDTO;
+    }
+}
@@ -0,0 +1,182 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.domain.*;
+import ch.fhnw.wodss.tippspiel.dto.ScrapedGameDTO;
+import ch.fhnw.wodss.tippspiel.event.GameChange;
+import ch.fhnw.wodss.tippspiel.event.GameResultEvent;
+import ch.fhnw.wodss.tippspiel.event.GameScheduleChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.GamesChangedEvent;
+import ch.fhnw.wodss.tippspiel.persistance.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Writes the games read by the WikipediaScraper. Teams, locations, phases, groups and games are each read with one
+ * query and matched in memory, only new and changed rows are written, in JDBC batches when the transaction commits.
+ */
+@Service
+public class GameImportService {
+
+    private static final long KICKOFF_TOLERANCE_MINUTES = 10;
+
+    private final GameRepository gameRepository;
+    private final LocationRepository locationRepository;
+    private final PhaseRepository phaseRepository;
+    private final TournamentTeamRepository tournamentTeamRepository;
+    private final TournamentGroupRepository tournamentGroupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public GameImportService(GameRepository gameRepository, LocationRepository locationRepository, PhaseRepository phaseRepository, TournamentTeamRepository tournamentTeamRepository, TournamentGroupRepository tournamentGroupRepository, ApplicationEventPublisher eventPublisher) {
+        this.gameRepository = gameRepository;
+        this.locationRepository = locationRepository;
+        this.phaseRepository = phaseRepository;
+        this.tournamentTeamRepository = tournamentTeamRepository;
+        this.tournamentGroupRepository = tournamentGroupRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Creates the games that don't exist yet and updates the others. A scraped game is the stored one with the same
+     * phase and slot, so a rescheduled game or a knockout game whose teams were still "tbd" is updated instead of
+     * created again. Games stored without a slot are matched once by the same teams and a kickoff within ten
+     * minutes and get the slot then. A result that was removed from the page is kept.
+     * <p>
+     * Every change is published as GameScheduleChangedEvent or GameResultEvent, which scores a new or corrected
+     * result right after the commit, and all of them together as one GamesChangedEvent.
+     *
+     * @return the changes, empty if nothing changed
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public List<GameChange> importGames(List<ScrapedGameDTO> scrapedGames) {
+        List<GameChange> changes = new ArrayList<>();
+        if (scrapedGames.isEmpty()) return changes;
+        // groups first, teams refer to them and the games to all others, so they are resolved without extra queries
+        Map<String, TournamentGroup> groups = byName(tournamentGroupRepository.findAll(), TournamentGroup::getName);
+        Map<String, TournamentTeam> teams = byName(tournamentTeamRepository.findAll(), TournamentTeam::getName);
+        Map<String, Location> locations = byName(locationRepository.findAll(), Location::getName);
+        Map<String, Phase> phases = byName(phaseRepository.findAll(), Phase::getName);
+        Map<String, Game> gamesBySlot = new HashMap<>();
+        Map<String, List<Game>> gamesByTeams = new HashMap<>();
+        for (Game game : gameRepository.findAll()) {
+            if (game.getSlot() != null) {
+                gamesBySlot.put(slotKey(game.getPhase(), game.getSlot()), game);
+            } else {
+                gamesByTeams.computeIfAbsent(teamsKey(game.getHomeTeam(), game.getAwayTeam()), key -> new ArrayList<>()).add(game);
+            }
+        }
+
+        for (ScrapedGameDTO scraped : scrapedGames) {
+            String groupName = scraped.getGroup().equals("") ? "-" : scraped.getGroup();
+            TournamentGroup group = groups.computeIfAbsent(groupName,
+                    name -> tournamentGroupRepository.save(new TournamentGroup(name)));
+            TournamentTeam homeTeam = teams.computeIfAbsent(scraped.getHomeTeam(),
+                    name -> tournamentTeamRepository.save(new TournamentTeam(name, group)));
+            TournamentTeam awayTeam = teams.computeIfAbsent(scraped.getAwayTeam(),
+                    name -> tournamentTeamRepository.save(new TournamentTeam(name, group)));
+            Location location = locations.computeIfAbsent(scraped.getLocation(),
+                    name -> locationRepository.save(new Location(name)));
+            Phase phase = phases.computeIfAbsent(scraped.getPhase(), name -> phaseRepository.save(new Phase(name)));
+
+            String slotKey = scraped.getSlot() == null ? null : slotKey(phase, scraped.getSlot());
+            Game game = slotKey == null ? null : gamesBySlot.get(slotKey);
+            List<Game> candidates = gamesByTeams.computeIfAbsent(teamsKey(homeTeam, awayTeam), key -> new ArrayList<>());
+            if (game == null) {
+                game = findByKickoff(candidates, scraped.getDateTime());
+                if (game != null && slotKey != null) {
+                    // written with the other changes, even if there are none
+                    game.setSlot(scraped.getSlot());
+                    candidates.remove(game);
+                    gamesBySlot.put(slotKey, game);
+                }
+            }
+            List<GameChange.Type> types = new ArrayList<>(2);
+            if (game == null) {
+                game = new Game(scraped.getDateTime(), null, null, homeTeam, awayTeam, location, phase);
+                game.setSlot(scraped.getSlot());
+                types.add(GameChange.Type.CREATED);
+            } else {
+                if (!scraped.getDateTime().equals(game.getDateTime())) {
+                    types.add(GameChange.Type.KICKOFF_MOVED);
+                }
+                if (game.getHomeTeam() != homeTeam || game.getAwayTeam() != awayTeam) {
+                    types.add(GameChange.Type.TEAMS_SET);
+                }
+            }
+            if (scraped.getHomeTeamGoals() != null && scraped.getAwayTeamGoals() != null) {
+                if (game.getHomeTeamGoals() == null || game.getAwayTeamGoals() == null) {
+                    types.add(GameChange.Type.RESULT_SET);
+                } else if (!game.getHomeTeamGoals().equals(scraped.getHomeTeamGoals())
+                        || !game.getAwayTeamGoals().equals(scraped.getAwayTeamGoals())) {
+                    types.add(GameChange.Type.RESULT_CORRECTED);
+                }
+            }
+            if (types.isEmpty() && game.getLocation() == location && game.getPhase() == phase) continue;
+            game.setLocation(location);
+            game.setPhase(phase);
+            game.setDateTime(scraped.getDateTime());
+            game.setHomeTeam(homeTeam);
+            game.setAwayTeam(awayTeam);
+            boolean resultChanged = types.contains(GameChange.Type.RESULT_SET) || types.contains(GameChange.Type.RESULT_CORRECTED);
+            if (resultChanged) {
+                game.setHomeTeamGoals(scraped.getHomeTeamGoals());
+                game.setAwayTeamGoals(scraped.getAwayTeamGoals());
+            }
+            if (game.getId() == null) {
+                game = gameRepository.save(game);
+                if (slotKey != null) {
+                    gamesBySlot.put(slotKey, game);
+                } else {
+                    candidates.add(game);
+                }
+            }
+            for (GameChange.Type type : types) {
+                changes.add(new GameChange(game.getId(), type, game.getDateTime(), game.getHomeTeamGoals(), game.getAwayTeamGoals()));
+            }
+            if (types.contains(GameChange.Type.CREATED) || types.contains(GameChange.Type.KICKOFF_MOVED)) {
+                eventPublisher.publishEvent(new GameScheduleChangedEvent(game.getId(), game.getDateTime()));
+            }
+            if (resultChanged) {
+                eventPublisher.publishEvent(new GameResultEvent(game.getId(), game.getHomeTeamGoals(), game.getAwayTeamGoals()));
+            }
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new GamesChangedEvent(changes));
+        }
+        return changes;
+    }
+
+    private static <T> Map<String, T> byName(List<T> entities, Function<T, String> name) {
+        Map<String, T> byName = new HashMap<>();
+        for (T entity : entities) {
+            // the first one wins, like the findFirstByName lookups
+            byName.putIfAbsent(name.apply(entity), entity);
+        }
+        return byName;
+    }
+
+    private static String slotKey(Phase phase, int slot) {
+        return phase.getName() + '\n' + slot;
+    }
+
+    private static String teamsKey(TournamentTeam homeTeam, TournamentTeam awayTeam) {
+        return homeTeam.getName() + '\n' + awayTeam.getName();
+    }
+
+    private static Game findByKickoff(List<Game> candidates, LocalDateTime kickoff) {
+        LocalDateTime from = kickoff.minusMinutes(KICKOFF_TOLERANCE_MINUTES);
+        LocalDateTime to = kickoff.plusMinutes(KICKOFF_TOLERANCE_MINUTES);
+        for (Game game : candidates) {
+            if (!game.getDateTime().isBefore(from) && !game.getDateTime().isAfter(to)) return game;
+        }
+        return null;
+    }
+}
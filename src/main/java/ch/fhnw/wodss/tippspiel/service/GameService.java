@@ -1,18 +1,25 @@
 package ch.fhnw.wodss.tippspiel.service;
 
-import ch.fhnw.wodss.tippspiel.domain.Bet;
 import ch.fhnw.wodss.tippspiel.domain.Game;
 import ch.fhnw.wodss.tippspiel.dto.GameDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestGameDTO;
 import ch.fhnw.wodss.tippspiel.dto.StatistikDTO;
+import ch.fhnw.wodss.tippspiel.event.GameChange;
+import ch.fhnw.wodss.tippspiel.event.GameResultEvent;
+import ch.fhnw.wodss.tippspiel.event.GameScheduleChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.GamesChangedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
 import ch.fhnw.wodss.tippspiel.persistance.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -24,19 +31,27 @@ import java.util.Optional;
 @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
 public class GameService {
 
+    private static final String GAME_CACHE_NAME = "games";
+
     private final GameRepository gameRepository;
     private final BetRepository betRepository;
     private final TournamentTeamRepository tournamentTeamRepository;
     private final LocationRepository locationRepository;
     private final PhaseRepository phaseRepository;
+    private final GameStatisticsService gameStatisticsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Autowired
-    public GameService(GameRepository gameRepository, BetRepository betRepository, TournamentTeamRepository tournamentTeamRepository, LocationRepository locationRepository, PhaseRepository phaseRepository) {
+    public GameService(GameRepository gameRepository, BetRepository betRepository, TournamentTeamRepository tournamentTeamRepository, LocationRepository locationRepository, PhaseRepository phaseRepository, GameStatisticsService gameStatisticsService, ApplicationEventPublisher eventPublisher, CacheManager cacheManager) {
         this.gameRepository = gameRepository;
         this.betRepository = betRepository;
         this.tournamentTeamRepository = tournamentTeamRepository;
         this.locationRepository = locationRepository;
         this.phaseRepository = phaseRepository;
+        this.gameStatisticsService = gameStatisticsService;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
@@ -69,6 +84,7 @@ public class GameService {
             throw new IllegalActionException("Can't create an identical game");
         }
         game = gameRepository.save(game);
+        eventPublisher.publishEvent(new GameScheduleChangedEvent(game.getId(), game.getDateTime()));
         return convertGameToGameDTO(game);
     }
 
@@ -84,6 +100,7 @@ public class GameService {
             game.setLocation(locationRepository.findById(restGameDTO.getLocationId()).orElseThrow(() -> new ResourceNotFoundException("Location with id " + restGameDTO.getLocationId() + "not found!")));
             game.setPhase(phaseRepository.findById(restGameDTO.getPhaseId()).orElseThrow(() -> new ResourceNotFoundException("Phase with id " + restGameDTO.getPhaseId() + "not found!")));
             gameRepository.save(game);
+            eventPublisher.publishEvent(new GameScheduleChangedEvent(id, game.getDateTime()));
             return convertGameToGameDTO(game);
         }
         throw new ResourceNotFoundException("Could not find game with id " + id + " to update.");
@@ -96,6 +113,7 @@ public class GameService {
         }
         if (gameRepository.existsById(id)) {
             gameRepository.deleteById(id);
+            eventPublisher.publishEvent(new GameScheduleChangedEvent(id, null));
         } else {
             throw new ResourceNotFoundException("Could not find game with id " + id + " to delete.");
         }
@@ -106,19 +124,40 @@ public class GameService {
         Optional<Game> game = gameRepository.findById(id);
         LocalDateTime now = LocalDateTime.now(ZoneId.of("Europe/Paris"));
         if (game.isPresent()) {
-            if (game.get().getDateTime().isBefore(now)) {
+            if (game.get().getDateTime().isAfter(now)) {
                 throw new IllegalActionException("Can't set Score for a game which hasn't been played jet.");
             }
             game.get().setHomeTeamGoals(homeTeamScore);
             game.get().setAwayTeamGoals(awayTeamScore);
             gameRepository.save(game.get());
+            eventPublisher.publishEvent(new GameResultEvent(id, homeTeamScore, awayTeamScore));
         } else {
             throw new ResourceNotFoundException("Could not find game with id " + id + " to update the score.");
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRED)
+    /**
+     * Drops the cached responses of games the scraper changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGamesChanged(GamesChangedEvent event) {
+        Cache games = cacheManager.getCache(GAME_CACHE_NAME);
+        if (games == null) return;
+        for (GameChange change : event.getChanges()) {
+            games.evict(change.getGameId());
+        }
+    }
+
+    /**
+     * Served from the in-memory counters. Only a game they don't know yet is computed from one query grouped
+     * by predicted score.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public StatistikDTO createGameBetStatistiks(Long id) {
+        Optional<StatistikDTO> statistics = gameStatisticsService.getStatistics(id);
+        if (statistics.isPresent()) {
+            return statistics.get();
+        }
         Optional<Game> game = gameRepository.findById(id);
         LocalDateTime now = LocalDateTime.now(ZoneId.of("Europe/Paris"));
         if (game.isPresent()) {
@@ -127,22 +166,11 @@ public class GameService {
                 statistikDTO.setGameStarted(false);
                 return statistikDTO;
             }
-            StatistikDTO statistikDTO = new StatistikDTO();
-            statistikDTO.setDraw(0);
-            statistikDTO.setHomeLose(0);
-            statistikDTO.setHomeWin(0);
-            statistikDTO.setGameStarted(true);
-            List<Bet> bets = betRepository.getAllByGame_Id(id);
-            for (Bet bet : bets) {
-                if (bet.getHomeTeamGoals() > bet.getAwayTeamGoals()) {
-                    statistikDTO.setHomeWin(statistikDTO.getHomeWin() + 1);
-                } else if (bet.getHomeTeamGoals() < bet.getAwayTeamGoals()) {
-                    statistikDTO.setHomeLose(statistikDTO.getHomeLose() + 1);
-                } else {
-                    statistikDTO.setDraw(statistikDTO.getDraw() + 1);
-                }
+            GameBetCounters counters = new GameBetCounters();
+            for (PredictedScoreView score : betRepository.getPredictedScores(id)) {
+                counters.add(score.getHomeTeamGoals(), score.getAwayTeamGoals(), score.getCount());
             }
-            return statistikDTO;
+            return counters.toStatistikDTO(GameStatisticsService.TOP_SCORES);
         } else {
             throw new ResourceNotFoundException("Could not find game with id " + id + ".");
         }
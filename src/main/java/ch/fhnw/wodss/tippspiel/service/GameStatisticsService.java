@@ -0,0 +1,102 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.dto.StatistikDTO;
+import ch.fhnw.wodss.tippspiel.event.BetChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.GameScheduleChangedEvent;
+import ch.fhnw.wodss.tippspiel.persistance.BetRepository;
+import ch.fhnw.wodss.tippspiel.persistance.GameKickoffView;
+import ch.fhnw.wodss.tippspiel.persistance.GamePredictedScoreView;
+import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the prediction counters and the kickoff of every game in memory. They are built once at startup and
+ * afterwards kept up to date by the bet and schedule events, so the statistics endpoint needs no query.
+ */
+@Service
+public class GameStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameStatisticsService.class);
+    static final int TOP_SCORES = 3;
+
+    private final GameRepository gameRepository;
+    private final BetRepository betRepository;
+    private final ConcurrentMap<Long, LocalDateTime> kickoffs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, GameBetCounters> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GameStatisticsService(GameRepository gameRepository, BetRepository betRepository) {
+        this.gameRepository = gameRepository;
+        this.betRepository = betRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public void reload() {
+        List<GameKickoffView> games = gameRepository.getKickoffs();
+        List<GamePredictedScoreView> scores = betRepository.getPredictedScoresOfAllGames();
+        kickoffs.clear();
+        counters.clear();
+        for (GameKickoffView game : games) {
+            kickoffs.put(game.getId(), game.getDateTime());
+        }
+        for (GamePredictedScoreView score : scores) {
+            getCounters(score.getGameId()).add(score.getHomeTeamGoals(), score.getAwayTeamGoals(), score.getCount());
+        }
+        logger.info("Game statistics loaded for " + games.size() + " games.");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBetChanged(BetChangedEvent event) {
+        GameBetCounters gameCounters = getCounters(event.getGameId());
+        if (event.getPreviousHomeTeamGoals() != null && event.getPreviousAwayTeamGoals() != null) {
+            gameCounters.add(event.getPreviousHomeTeamGoals(), event.getPreviousAwayTeamGoals(), -1);
+        }
+        if (event.getHomeTeamGoals() != null && event.getAwayTeamGoals() != null) {
+            gameCounters.add(event.getHomeTeamGoals(), event.getAwayTeamGoals(), 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameScheduleChanged(GameScheduleChangedEvent event) {
+        if (event.getKickoff() == null) {
+            kickoffs.remove(event.getGameId());
+            counters.remove(event.getGameId());
+        } else {
+            kickoffs.put(event.getGameId(), event.getKickoff());
+        }
+    }
+
+    /**
+     * The statistics of a game, empty if the game is not known to the counters.
+     */
+    public Optional<StatistikDTO> getStatistics(Long gameId) {
+        LocalDateTime kickoff = kickoffs.get(gameId);
+        if (kickoff == null) return Optional.empty();
+        if (kickoff.isAfter(LocalDateTime.now(ZoneId.of("Europe/Paris")))) {
+            StatistikDTO statistikDTO = new StatistikDTO();
+            statistikDTO.setGameStarted(false);
+            return Optional.of(statistikDTO);
+        }
+        return Optional.of(getCounters(gameId).toStatistikDTO(TOP_SCORES));
+    }
+
+    private GameBetCounters getCounters(Long gameId) {
+        return counters.computeIfAbsent(gameId, id -> new GameBetCounters());
+    }
+}
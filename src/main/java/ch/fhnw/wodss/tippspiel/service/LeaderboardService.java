@@ -0,0 +1,233 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
+import ch.fhnw.wodss.tippspiel.event.UserDeletedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserSavedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserScoreChange;
+import ch.fhnw.wodss.tippspiel.event.UserScoresChangedEvent;
+import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import ch.fhnw.wodss.tippspiel.util.RankingTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the overall ranking in memory, ordered by score, exact hits and user id. It is loaded once from the
+ * materialized user totals and afterwards only patched with the score changes, so ranking requests don't hit
+ * the database.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry entry) -> entry.score).reversed()
+            .thenComparing(Comparator.comparingInt((Entry entry) -> entry.exactHits).reversed())
+            .thenComparingLong(entry -> entry.userId);
+
+    private final UserRepository userRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final RankingTree<Entry> ranking = new RankingTree<>(ORDER);
+
+    @Autowired
+    public LeaderboardService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public void reload() {
+        List<UserRankingDTO> totals = userRepository.getRanking();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            ranking.clear();
+            for (UserRankingDTO total : totals) {
+                put(new Entry(total.getId(), total.getName(), total.getScore(), total.getExactHits()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Leaderboard loaded with " + totals.size() + " users.");
+    }
+
+    /**
+     * Runs before the other listeners, so that they see the new ranks.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onUserScoresChanged(UserScoresChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (UserScoreChange change : event.getChanges()) {
+                Entry entry = entries.get(change.getUserId());
+                if (entry == null) continue;
+                put(new Entry(entry.userId, entry.name, entry.score + change.getScoreDelta(),
+                        entry.exactHits + change.getExactHitsDelta()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Only once the user is committed, a rolled back registration or rename must not show up in the ranking.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSaved(UserSavedEvent event) {
+        putUser(event.getUserId(), event.getName());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        removeUser(event.getUserId());
+    }
+
+    /**
+     * Adds a user with no points yet or renames an existing one.
+     */
+    public void putUser(Long userId, String name) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(userId);
+            put(entry == null ? new Entry(userId, name, 0, 0) : new Entry(userId, name, entry.score, entry.exactHits));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(Long userId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(userId);
+            if (entry != null) ranking.remove(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public LeaderboardEntryDTO getRank(Long userId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = getEntry(userId);
+            return toDTO(entry, rankOf(entry));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LeaderboardEntryDTO> getTop(int limit) {
+        return getPage(0, limit);
+    }
+
+    public List<LeaderboardEntryDTO> getPage(int page, int size) {
+        if (page < 0) throw new IllegalActionException("Page must not be negative");
+        if (size < 1 || size > MAX_PAGE_SIZE) throw new IllegalActionException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        lock.readLock().lock();
+        try {
+            long from = (long) page * size;
+            if (from >= ranking.size()) return new ArrayList<>();
+            return toDTOs(ranking.range((int) from, (int) from + size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The user together with up to range users ranked directly above and below.
+     */
+    public List<LeaderboardEntryDTO> getNeighbours(Long userId, int range) {
+        if (range < 0 || range > MAX_PAGE_SIZE) throw new IllegalActionException("Range must be between 0 and " + MAX_PAGE_SIZE);
+        lock.readLock().lock();
+        try {
+            int position = ranking.countBefore(getEntry(userId));
+            return toDTOs(ranking.range(position - range, position + range + 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The whole ranking in ascending order of score, as served by the original ranking endpoint.
+     */
+    public List<UserRankingDTO> getAllAscending() {
+        lock.readLock().lock();
+        try {
+            List<UserRankingDTO> dtos = new ArrayList<>();
+            for (Entry entry : ranking.range(0, ranking.size())) {
+                dtos.add(new UserRankingDTO(entry.userId, entry.name, entry.score, entry.exactHits));
+            }
+            Collections.reverse(dtos);
+            return dtos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.userId, entry);
+        if (previous != null) ranking.remove(previous);
+        ranking.add(entry);
+    }
+
+    private Entry getEntry(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) throw new ResourceNotFoundException("Can't find a user with id: " + userId);
+        return entry;
+    }
+
+    /**
+     * Users with the same score and exact hits share a rank.
+     */
+    private int rankOf(Entry entry) {
+        return ranking.countBefore(new Entry(Long.MIN_VALUE, null, entry.score, entry.exactHits)) + 1;
+    }
+
+    private List<LeaderboardEntryDTO> toDTOs(List<Entry> page) {
+        List<LeaderboardEntryDTO> dtos = new ArrayList<>();
+        Entry previous = null;
+        int rank = 0;
+        for (Entry entry : page) {
+            boolean tie = previous != null && previous.score == entry.score && previous.exactHits == entry.exactHits;
+            if (!tie) rank = rankOf(entry);
+            dtos.add(toDTO(entry, rank));
+            previous = entry;
+        }
+        return dtos;
+    }
+
+    private LeaderboardEntryDTO toDTO(Entry entry, int rank) {
+        return new LeaderboardEntryDTO(rank, entry.userId, entry.name, entry.score, entry.exactHits);
+    }
+
+    private static class Entry {
+        private final Long userId;
+        private final String name;
+        private final int score;
+        private final int exactHits;
+
+        private Entry(Long userId, String name, int score, int exactHits) {
+            this.userId = userId;
+            this.name = name;
+            this.score = score;
+            this.exactHits = exactHits;
+        }
+    }
+}
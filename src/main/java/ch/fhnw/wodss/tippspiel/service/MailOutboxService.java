@@ -0,0 +1,59 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.domain.MailRun;
+import ch.fhnw.wodss.tippspiel.domain.OutboxMail;
+import ch.fhnw.wodss.tippspiel.event.MailEnqueuedEvent;
+import ch.fhnw.wodss.tippspiel.event.MailRunClosedEvent;
+import ch.fhnw.wodss.tippspiel.persistance.MailRunRepository;
+import ch.fhnw.wodss.tippspiel.persistance.OutboxMailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes mails to the outbox within the caller's transaction, they are only sent once it commits.
+ */
+@Service
+public class MailOutboxService {
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailRunRepository mailRunRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public MailOutboxService(OutboxMailRepository outboxMailRepository, MailRunRepository mailRunRepository,
+                             ApplicationEventPublisher eventPublisher) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailRunRepository = mailRunRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void enqueue(String recipient, String subject, String body) {
+        outboxMailRepository.save(new OutboxMail(recipient, subject, body, LocalDateTime.now()));
+        eventPublisher.publishEvent(new MailEnqueuedEvent(1));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void enqueueAll(List<OutboxMail> mails) {
+        if (mails.isEmpty()) return;
+        outboxMailRepository.saveAll(mails);
+        eventPublisher.publishEvent(new MailEnqueuedEvent(mails.size()));
+    }
+
+    /**
+     * Marks a run as complete on the producing side, to be called after its last page was enqueued. Until then the
+     * dispatcher doesn't report the run, even if it has sent everything queued so far.
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void closeRun(String run, int mailCount) {
+        if (mailCount == 0) return;
+        mailRunRepository.save(new MailRun(run, mailCount, LocalDateTime.now()));
+        eventPublisher.publishEvent(new MailRunClosedEvent(run));
+    }
+}
@@ -1,28 +1,29 @@
 package ch.fhnw.wodss.tippspiel.service;
 
+import ch.fhnw.wodss.tippspiel.domain.Bet;
 import ch.fhnw.wodss.tippspiel.domain.BetGroup;
 import ch.fhnw.wodss.tippspiel.domain.Role;
 import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.*;
+import ch.fhnw.wodss.tippspiel.event.BetChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.BetGroupsChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserDeletedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserSavedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
 import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
 import ch.fhnw.wodss.tippspiel.persistance.RoleRepository;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
 import ch.fhnw.wodss.tippspiel.security.Argon2PasswordEncoder;
-import ch.fhnw.wodss.tippspiel.util.GMail;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import ch.fhnw.wodss.tippspiel.util.RandomString;
-import com.google.api.services.gmail.Gmail;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
-import javax.naming.ServiceUnavailableException;
-import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -39,15 +40,21 @@ public class UserService {
     private final Argon2PasswordEncoder argon2PasswordEncoder;
     private final RoleRepository roleRepository;
     private final BetGroupRepository betGroupRepository;
+    private final LeaderboardService leaderboardService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MailOutboxService mailOutboxService;
 
     @Autowired
-    public UserService(UserRepository repository, BetGroupService betGroupService, BetService betService, Argon2PasswordEncoder argon2PasswordEncoder, RoleRepository roleRepository, BetGroupRepository betGroupRepository) {
+    public UserService(UserRepository repository, BetGroupService betGroupService, BetService betService, Argon2PasswordEncoder argon2PasswordEncoder, RoleRepository roleRepository, BetGroupRepository betGroupRepository, LeaderboardService leaderboardService, ApplicationEventPublisher eventPublisher, MailOutboxService mailOutboxService) {
         this.repository = repository;
         this.betGroupService = betGroupService;
         this.betService = betService;
         this.argon2PasswordEncoder = argon2PasswordEncoder;
         this.roleRepository = roleRepository;
         this.betGroupRepository = betGroupRepository;
+        this.leaderboardService = leaderboardService;
+        this.eventPublisher = eventPublisher;
+        this.mailOutboxService = mailOutboxService;
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
@@ -60,12 +67,8 @@ public class UserService {
         return userDTOS;
     }
 
-    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<UserRankingDTO> getAllUsersForRanking() {
-        List<User> users = repository.findAll();
-        List<UserRankingDTO> userRankingDTOs = createAllUsersForRankingDTOList(users);
-        userRankingDTOs.sort(Comparator.comparingInt(UserRankingDTO::getScore));
-        return userRankingDTOs;
+        return leaderboardService.getAllAscending();
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
@@ -106,21 +109,32 @@ public class UserService {
         roles.add(role);
         user.setRoles(roles);
         user = repository.save(user);
+        eventPublisher.publishEvent(new UserSavedEvent(user.getId(), user.getName()));
         return convertUserToUserDTO(user);
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public void deleteUser(Long id, User user) {
-        if (!id.equals(user.getId())) throw new IllegalActionException("You can't delete another user!");
+    public void deleteUser(Long id, UserPrincipal principal) {
+        if (!id.equals(principal.getId())) throw new IllegalActionException("You can't delete another user!");
         if (repository.existsById(id)) {
-            user = repository.findById(id).get();
+            User user = repository.findById(id).get();
+            List<Long> betGroupIds = new ArrayList<>();
             for (BetGroup betGroup : user.getBetGroups()) {
                 List<User> betgroupMembers = betGroup.getMembers();
                 betgroupMembers.remove(user);
                 betGroup.setMembers(betgroupMembers);
+                betGroup.memberLeft(user.getTotalScore());
                 betGroupRepository.saveAndFlush(betGroup);
+                betGroupRepository.addMember(betGroup.getId(), -1, -user.getTotalScore());
+                betGroupIds.add(betGroup.getId());
             }
             repository.deleteById(id);
+            for (Bet bet : user.getBets()) {
+                eventPublisher.publishEvent(new BetChangedEvent(bet.getGame().getId(), bet.getHomeTeamGoals(),
+                        bet.getAwayTeamGoals(), null, null));
+            }
+            eventPublisher.publishEvent(new BetGroupsChangedEvent(betGroupIds));
+            eventPublisher.publishEvent(new UserDeletedEvent(id));
 
         } else {
             throw new IllegalActionException("Operation failed.");
@@ -128,9 +142,9 @@ public class UserService {
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public UserDTO updateUser(User user, RestUserDTO restUserDTO) {
-        Optional<User> userToUpdate = repository.findById(user.getId());
-        if(!user.getEmail().equals(restUserDTO.getEmail()) &&  repository.findUserByEmailEquals(restUserDTO.getEmail()).isPresent()) {
+    public UserDTO updateUser(UserPrincipal principal, RestUserDTO restUserDTO) {
+        Optional<User> userToUpdate = repository.findById(principal.getId());
+        if(!principal.getEmail().equals(restUserDTO.getEmail()) &&  repository.findUserByEmailEquals(restUserDTO.getEmail()).isPresent()) {
             throw new IllegalActionException("This email adress is already in use by another user!");
         }
         if (userToUpdate.isPresent()) {
@@ -146,7 +160,10 @@ public class UserService {
                 if (restUserDTO.getPassword().length() < 10) throw new IllegalActionException("Operation failed.");
                 userToUpdate.get().setPassword(argon2PasswordEncoder.encode(restUserDTO.getNewPassword()));
             }
-            user = repository.save(userToUpdate.get());
+            User user = repository.save(userToUpdate.get());
+            eventPublisher.publishEvent(new UserSavedEvent(user.getId(), user.getName()));
+            eventPublisher.publishEvent(new BetGroupsChangedEvent(
+                    user.getBetGroups().stream().map(BetGroup::getId).collect(Collectors.toList())));
             return convertUserToUserDTO(user);
         } else {
             throw new IllegalActionException("Operation failed.");
@@ -161,29 +178,11 @@ public class UserService {
                 .append("Du hast ein neues Passwort angefordert. \n Dein neues Passwort lautet: ")
                 .append(newPassword)
                 .append("\nDieses Passwort ist absofort gültig.");
-        try {
-            User userToUpdate = repository.findUserByEmailEquals(email).orElseThrow(() -> new ResourceNotFoundException("Operation failed."));
-            MimeMessage mimeMessage = GMail.createEmail(email, "tippspiel.wm18@gmail.com", "WM 2018 Tippspiel - Passwortreset", stringBuilder.toString());
-            Gmail service = GMail.getAuthorizedService().orElseThrow(() -> new ServiceUnavailableException("GMail service not available"));
-            GMail.sendMessage(service, "me", mimeMessage);
-            userToUpdate.setPassword(argon2PasswordEncoder.encode(newPassword));
-            repository.save(userToUpdate);
-
-        } catch (MessagingException | ServiceUnavailableException | IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private List<UserRankingDTO> createAllUsersForRankingDTOList(List<User> users) {
-        List<UserRankingDTO> dtos = new ArrayList<>();
-        for (User user : users) {
-            UserRankingDTO dto = new UserRankingDTO();
-            dto.setId(user.getId());
-            dto.setName(user.getName());
-            dto.setScore(user.getBets().stream().mapToInt(bet -> bet.getScore() == null ? 0: bet.getScore()).sum());
-            dtos.add(dto);
-        }
-        return dtos;
+        User userToUpdate = repository.findUserByEmailEquals(email).orElseThrow(() -> new ResourceNotFoundException("Operation failed."));
+        userToUpdate.setPassword(argon2PasswordEncoder.encode(newPassword));
+        repository.save(userToUpdate);
+        // sent by the MailDispatcher once the new password is committed
+        mailOutboxService.enqueue(email, "WM 2018 Tippspiel - Passwortreset", stringBuilder.toString());
     }
 
     public UserDTO convertUserToUserDTO(User user) {
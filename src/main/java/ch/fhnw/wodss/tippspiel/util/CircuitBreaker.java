@@ -0,0 +1,70 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calls to a failing remote after {@code failureThreshold} failures in a row. While open, calls are refused
+ * until the open duration has passed, then a single trial call is let through: a success closes the breaker again,
+ * a failure opens it for twice as long as before, up to {@code maxOpenSeconds}.
+ */
+public class CircuitBreaker {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final int failureThreshold;
+    private final long minOpenNanos;
+    private final long maxOpenNanos;
+    private final LongSupplier nanoClock;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openNanos;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openSeconds, long maxOpenSeconds) {
+        this(failureThreshold, openSeconds, maxOpenSeconds, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openSeconds, long maxOpenSeconds, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.failureThreshold = failureThreshold;
+        this.minOpenNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+        this.maxOpenNanos = TimeUnit.SECONDS.toNanos(Math.max(openSeconds, maxOpenSeconds));
+        this.openNanos = minOpenNanos;
+    }
+
+    /**
+     * @return whether the call may go ahead, every allowed call must be followed by a success or failure
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        openNanos = minOpenNanos;
+    }
+
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            openNanos = Math.min(maxOpenNanos, openNanos * 2);
+            open();
+        } else if (++failures >= failureThreshold) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+}
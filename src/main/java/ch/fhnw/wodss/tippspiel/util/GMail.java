@@ -26,9 +26,12 @@ import java.io.*;
 import java.security.GeneralSecurityException;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.Properties;
 
+/**
+ * Long-lived Gmail client: the HTTP transport, the client secret and the stored credential are loaded once on
+ * the first send and shared by all threads afterwards.
+ */
 @Component
 public class GMail {
     private static final Logger logger = LoggerFactory.getLogger(GMail.class);
@@ -37,7 +40,9 @@ public class GMail {
     private static final String CREDENTIALS_FOLDER = "src/main/resources/";
     private static final String CLIENT_SECRET_DIR = "client_secret.json";
     private static final List<String> SCOPES = Collections.singletonList(GmailScopes.GMAIL_SEND);
+    private static final Session SESSION = Session.getDefaultInstance(new Properties(), null);
 
+    private volatile Gmail service;
 
     /**
      * Creates an authorized Credential object.
@@ -61,22 +66,51 @@ public class GMail {
     }
 
     /**
-     * Authenticates a new Gmail service.
+     * The shared Gmail service, authorized on the first call. The credential refreshes its access token itself.
      *
      * @return An authorized Gmail service.
+     * @throws IOException If the service can't be authorized.
      */
-    public static Optional<Gmail> getAuthorizedService() {
-        final NetHttpTransport HTTP_TRANSPORT;
-        Optional<Gmail> service = Optional.empty();
-        try {
-            HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
-            service = Optional.of(new Gmail.Builder(HTTP_TRANSPORT, JSON_FACTORY, getCredentials(HTTP_TRANSPORT))
-                    .setApplicationName(APPLICATION_NAME)
-                    .build());
-        } catch (GeneralSecurityException | IOException e) {
-            e.printStackTrace();
+    public Gmail getService() throws IOException {
+        Gmail current = service;
+        if (current == null) {
+            synchronized (this) {
+                if (service == null) {
+                    try {
+                        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+                        service = new Gmail.Builder(httpTransport, JSON_FACTORY, getCredentials(httpTransport))
+                                .setApplicationName(APPLICATION_NAME)
+                                .build();
+                    } catch (GeneralSecurityException e) {
+                        throw new IOException("Can't create the HTTP transport for gmail", e);
+                    }
+                }
+                current = service;
+            }
         }
-        return service;
+        return current;
+    }
+
+    /**
+     * Drops the service, e.g. after its credential was revoked, the next send authorizes again.
+     */
+    public void reset() {
+        service = null;
+    }
+
+    /**
+     * Send an email from the authorized mailbox to its recipient.
+     *
+     * @param emailContent Email to be sent.
+     * @return The sent message
+     * @throws MessagingException
+     * @throws IOException
+     */
+    public Message send(MimeMessage emailContent) throws MessagingException, IOException {
+        Message message = createMessageWithEmail(emailContent);
+        message = getService().users().messages().send("me", message).execute();
+        logger.debug("Message id: " + message.getId());
+        return message;
     }
 
     /**
@@ -94,10 +128,7 @@ public class GMail {
                                           String subject,
                                           String bodyText)
             throws MessagingException {
-        Properties props = new Properties();
-        Session session = Session.getDefaultInstance(props, null);
-
-        MimeMessage email = new MimeMessage(session);
+        MimeMessage email = new MimeMessage(SESSION);
 
         email.setFrom(new InternetAddress(from));
         email.addRecipient(javax.mail.Message.RecipientType.TO,
@@ -125,27 +156,4 @@ public class GMail {
         message.setRaw(encodedEmail);
         return message;
     }
-
-    /**
-     * Send an email from the user's mailbox to its recipient.
-     *
-     * @param service      Authorized Gmail API instance.
-     * @param userId       User's email address. The special value "me"
-     *                     can be used to indicate the authenticated user.
-     * @param emailContent Email to be sent.
-     * @return The sent message
-     * @throws MessagingException
-     * @throws IOException
-     */
-    public static Message sendMessage(Gmail service,
-                                      String userId,
-                                      MimeMessage emailContent)
-            throws MessagingException, IOException {
-        Message message = createMessageWithEmail(emailContent);
-        message = service.users().messages().send(userId, message).execute();
-
-        logger.info("Message id: " + message.getId());
-        logger.info(message.toPrettyString());
-        return message;
-    }
 }
@@ -0,0 +1,159 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Order-statistic tree: a treap whose nodes know the size of their subtree, so that the position of an element
+ * and the elements at a position can be looked up in O(log n). Not thread-safe, callers have to synchronize.
+ */
+public class RankingTree<E> {
+
+    private final Comparator<? super E> comparator;
+    private final Random random = new Random();
+    private Node<E> root;
+
+    public RankingTree(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    public void add(E element) {
+        Node<E>[] parts = split(root, element);
+        root = merge(merge(parts[0], new Node<>(element, random.nextInt())), parts[1]);
+    }
+
+    public boolean remove(E element) {
+        int size = size();
+        root = remove(root, element);
+        return size() < size;
+    }
+
+    /**
+     * Number of elements ordered before the given one. The element itself does not have to be in the tree.
+     */
+    public int countBefore(E element) {
+        int count = 0;
+        Node<E> node = root;
+        while (node != null) {
+            if (comparator.compare(element, node.value) <= 0) {
+                node = node.left;
+            } else {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    public E get(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Elements from position from (inclusive) to position to (exclusive), in O(log n + to - from).
+     */
+    public List<E> range(int from, int to) {
+        List<E> elements = new ArrayList<>();
+        collect(root, Math.max(from, 0), Math.min(to, size()), 0, elements);
+        return elements;
+    }
+
+    private void collect(Node<E> node, int from, int to, int offset, List<E> elements) {
+        if (node == null || from >= to) return;
+        int position = offset + size(node.left);
+        if (from < position) collect(node.left, from, to, offset, elements);
+        if (from <= position && position < to) elements.add(node.value);
+        if (position + 1 < to) collect(node.right, from, to, position + 1, elements);
+    }
+
+    /**
+     * Splits into the elements ordered before the given one and the rest.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<E>[] split(Node<E> node, E element) {
+        if (node == null) return new Node[]{null, null};
+        if (comparator.compare(node.value, element) < 0) {
+            Node<E>[] parts = split(node.right, element);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        } else {
+            Node<E>[] parts = split(node.left, element);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+            return parts;
+        }
+    }
+
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    private Node<E> remove(Node<E> node, E element) {
+        if (node == null) return null;
+        int comparison = comparator.compare(element, node.value);
+        if (comparison == 0) return merge(node.left, node.right);
+        if (comparison < 0) {
+            node.left = remove(node.left, element);
+        } else {
+            node.right = remove(node.right, element);
+        }
+        node.update();
+        return node;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node<E> {
+        private final E value;
+        private final int priority;
+        private Node<E> left;
+        private Node<E> right;
+        private int size = 1;
+
+        private Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+
+        private void update() {
+            size = size(left) + size(right) + 1;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sliding-window log: admits at most {@code limit} events per key within the window. The keys are spread over
+ * a fixed number of independently locked stripes, so concurrent callers only contend when their keys share one.
+ */
+public class SlidingWindowLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final int limit;
+    private final long windowMillis;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public SlidingWindowLimiter(int limit, long windowMillis) {
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Records the event and returns 0 if it is within the limit, otherwise returns the milliseconds until the
+     * key has room again without recording anything.
+     */
+    public long tryAcquire(String key, long now) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            ArrayDeque<Long> events = stripe.events.computeIfAbsent(key, k -> new ArrayDeque<>());
+            evictExpired(events, now);
+            if (events.size() >= limit) return events.peekFirst() + windowMillis - now;
+            events.addLast(now);
+            return 0;
+        }
+    }
+
+    /**
+     * Takes back the latest event of the key, e.g. when an admitted attempt turns out not to count.
+     */
+    public void release(String key) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            ArrayDeque<Long> events = stripe.events.get(key);
+            if (events != null) events.pollLast();
+        }
+    }
+
+    public void reset(String key) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.events.remove(key);
+        }
+    }
+
+    /**
+     * Forgets keys without events in the window, so that the memory doesn't grow with every key ever seen.
+     */
+    public void purge(long now) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.events.values().removeIf(events -> {
+                    evictExpired(events, now);
+                    return events.isEmpty();
+                });
+            }
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+        return stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPES];
+    }
+
+    private void evictExpired(ArrayDeque<Long> events, long now) {
+        while (!events.isEmpty() && events.peekFirst() <= now - windowMillis) {
+            events.pollFirst();
+        }
+    }
+
+    private static class Stripe {
+        private final Map<String, ArrayDeque<Long>> events = new HashMap<>();
+    }
+}
@@ -0,0 +1,41 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket holding up to {@code burst} tokens that refills at a steady rate. A caller takes its token right
+ * away, possibly into debt, and then sleeps until the token would have been available, so waiting callers are
+ * served in arrival order without polling.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double tokensPerSecond, int burst) {
+        this.capacity = burst;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, waiting as long as needed.
+     *
+     * @return the nanoseconds waited
+     */
+    public long acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            tokens -= 1;
+            wait = tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+        }
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+        return wait;
+    }
+}
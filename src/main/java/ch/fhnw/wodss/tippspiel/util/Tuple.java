@@ -1,5 +1,7 @@
 package ch.fhnw.wodss.tippspiel.util;
 
+import java.util.Objects;
+
 public class Tuple<X, Y> {
 
     public final X left;
@@ -10,5 +12,19 @@ public class Tuple<X, Y> {
         this.right = y;
     }
 
+    @Override
+    public boolean equals(Object other) {
+        if (other == null) return false;
+        if (other == this) return true;
+        if (!(other instanceof Tuple)) return false;
+        Tuple<?, ?> otherTuple = (Tuple<?, ?>) other;
+        return Objects.equals(left, otherTuple.left) && Objects.equals(right, otherTuple.right);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(left, right);
+    }
+
 
 }
\ No newline at end of file
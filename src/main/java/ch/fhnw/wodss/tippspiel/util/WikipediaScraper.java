@@ -1,40 +1,77 @@
 package ch.fhnw.wodss.tippspiel.util;
 
-import ch.fhnw.wodss.tippspiel.domain.*;
-import ch.fhnw.wodss.tippspiel.persistance.*;
+import ch.fhnw.wodss.tippspiel.dto.ScrapedGameDTO;
+import ch.fhnw.wodss.tippspiel.event.GameChange;
+import ch.fhnw.wodss.tippspiel.scraper.FixturePage;
+import ch.fhnw.wodss.tippspiel.scraper.FixtureSource;
+import ch.fhnw.wodss.tippspiel.service.GameImportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class WikipediaScraper {
+    private static final Logger logger = LoggerFactory.getLogger(WikipediaScraper.class);
 
-    private static final String WIKIPEDIA_SEARCH_URL = "https://de.wikipedia.org/wiki/Fu%C3%9Fball-Weltmeisterschaft_2018";
+    private static final String GROUP_TABLES = "table.wikitable.zebra.hintergrundfarbe5 > tbody";
+    private static final String SMALL_FINAL_HEADING = "h3 > span#Spiel_um_Platz_3";
+    private static final String FINAL_TABLES = "table.wikitable[width=100%] > tbody";
     private HashMap<String, String> teams = new HashMap<>();
     private HashMap<String, String> locations = new HashMap<>();
     private HashMap<String, Integer> month = new HashMap<>();
-    private GameRepository gameRepository;
-    private LocationRepository locationRepository;
-    private PhaseRepository phaseRepository;
-    private TournamentTeamRepository tournamentTeamRepository;
-    private TournamentGroupRepository tournamentGroupRepository;
+    private GameImportService gameImportService;
+    private FixtureSource fixtureSource;
+    private MeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+    private Timer fetchTimer;
+    private Timer fetchFailedTimer;
+    private Timer parseTimer;
+    private Counter notModified;
+    private Counter unchanged;
+    private Counter circuitOpen;
+    private volatile PageVersion pageVersion = PageVersion.UNKNOWN;
+
+    @Value("${scraper.circuit.failures:3}")
+    private int CIRCUIT_FAILURES;
+    @Value("${scraper.circuit.openseconds:1800}")
+    private long CIRCUIT_OPEN_SECONDS;
+    @Value("${scraper.circuit.maxopenseconds:14400}")
+    private long CIRCUIT_MAX_OPEN_SECONDS;
 
     @Autowired
-    public WikipediaScraper(GameRepository gameRepository, LocationRepository locationRepository, PhaseRepository phaseRepository, TournamentTeamRepository tournamentTeamRepository, TournamentGroupRepository tournamentGroupRepository) {
-        this.gameRepository = gameRepository;
-        this.locationRepository = locationRepository;
-        this.phaseRepository = phaseRepository;
-        this.tournamentGroupRepository = tournamentGroupRepository;
-        this.tournamentTeamRepository = tournamentTeamRepository;
+    public WikipediaScraper(GameImportService gameImportService, FixtureSource fixtureSource, MeterRegistry meterRegistry) {
+        this.gameImportService = gameImportService;
+        this.fixtureSource = fixtureSource;
+        this.meterRegistry = meterRegistry;
+        this.fetchTimer = meterRegistry.timer("scraper.fetch", "outcome", "success");
+        this.fetchFailedTimer = meterRegistry.timer("scraper.fetch", "outcome", "failure");
+        this.parseTimer = meterRegistry.timer("scraper.parse");
+        this.notModified = meterRegistry.counter("scraper.skipped", "reason", "notmodified");
+        this.unchanged = meterRegistry.counter("scraper.skipped", "reason", "unchanged");
+        this.circuitOpen = meterRegistry.counter("scraper.skipped", "reason", "circuitopen");
 
         teams.put("Russland", "rus");
         teams.put("Saudi-Arabien", "sau");
@@ -98,100 +135,182 @@ public class WikipediaScraper {
         month.put("Dezember", 12);
     }
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public void scrapeGroupToSemiFinal() {
-        Document doc = null;
+    @PostConstruct
+    public void createCircuitBreaker() {
+        circuitBreaker = new CircuitBreaker(CIRCUIT_FAILURES, CIRCUIT_OPEN_SECONDS, CIRCUIT_MAX_OPEN_SECONDS);
+        meterRegistry.gauge("scraper.circuit.open", circuitBreaker,
+                breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1);
+    }
+
+    /**
+     * Downloads and parses the page once and runs all extractors over the same document. Download and parsing
+     * are timed separately, as scraper.fetch and scraper.parse.
+     * <p>
+     * Nothing is parsed if the page wasn't modified since the last run, as told by the server or by the hash of
+     * the page, and nothing is written if the tables with the games didn't change, e.g. after an edit of another
+     * section. The version of the page is only remembered once the games read from it are committed.
+     * <p>
+     * Only the import of the games runs in a transaction, the download and parsing happen before it.
+     * <p>
+     * After repeated failed downloads the page isn't requested for a while, see {@link CircuitBreaker}. The
+     * latency of successful and failed downloads is recorded as scraper.fetch, tagged with the outcome.
+     */
+    public void scrape() {
+        if (!circuitBreaker.allowRequest()) {
+            circuitOpen.increment();
+            return;
+        }
+        PageVersion known = pageVersion;
+        FixturePage page;
+        long start = System.nanoTime();
         try {
-            doc = Jsoup.connect(WIKIPEDIA_SEARCH_URL).userAgent("Mozilla/5.0").get();
-            Elements groups = doc.select("table.wikitable.zebra.hintergrundfarbe5 > tbody");
-            for (int countGroups = 0; countGroups < groups.size(); countGroups++) {
-                Element group = groups.get(countGroups);
-                this.parseGroupTable(group, countGroups);
-            }
+            page = fixtureSource.fetch(known.etag, known.lastModified);
+            fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            circuitBreaker.recordSuccess();
         } catch (IOException e) {
-            e.printStackTrace();
+            recordFetchFailure(start);
+            logger.error("Can't fetch " + fixtureSource.getLocation() + ": " + e.getMessage()
+                    + (circuitBreaker.getState() == CircuitBreaker.State.OPEN ? ", pausing the scraper" : ""));
+            return;
+        } catch (RuntimeException | Error e) {
+            // every allowed call needs an outcome, otherwise a failed trial call leaves the breaker half open
+            recordFetchFailure(start);
+            throw e;
+        }
+        if (page == null) {
+            notModified.increment();
+            return;
+        }
+        String bodyHash = hash(page.getBody());
+        if (bodyHash.equals(known.bodyHash)) {
+            pageVersion = new PageVersion(page, bodyHash, known.tablesHash);
+            notModified.increment();
+            return;
+        }
+        Document doc;
+        try {
+            long parseStart = System.nanoTime();
+            doc = Jsoup.parse(new ByteArrayInputStream(page.getBody()), page.getCharset(), fixtureSource.getLocation());
+            parseTimer.record(System.nanoTime() - parseStart, TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            logger.error("Can't parse " + fixtureSource.getLocation() + ": " + e.getMessage());
+            return;
+        }
+        String tablesHash = hash(gameTables(doc));
+        PageVersion version = new PageVersion(page, bodyHash, tablesHash);
+        if (tablesHash.equals(known.tablesHash)) {
+            pageVersion = version;
+            unchanged.increment();
+            return;
         }
+        List<ScrapedGameDTO> games = new ArrayList<>();
+        boolean complete = extract("group to semi final", () -> scrapeGroupToSemiFinal(doc, games));
+        complete &= extract("small final", () -> scrapeSmallFinal(doc, games));
+        complete &= extract("final", () -> scrapeFinal(doc, games));
+        numberSlots(games);
+        List<GameChange> changes = gameImportService.importGames(games);
+        logger.info(changes.size() + " game changes scraped from " + games.size() + " games.");
+        // a section that couldn't be read is tried again on the next run
+        if (complete) pageVersion = version;
     }
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public void scrapeFinal() {
-        Document doc = null;
-        try {
-            doc = Jsoup.connect(WIKIPEDIA_SEARCH_URL).userAgent("Mozilla/5.0").get();
-            Elements tableBodies = doc.select("table.wikitable[width=100%] > tbody");
-            Element tableBody = tableBodies.first();
-            Element teams = tableBody.child(0);
-            String homeTeamName = lookupTeamAbreviation(teams.child(0).ownText());
-            String awayTeamName = lookupTeamAbreviation(teams.child(1).ownText());
-            Element dateAndLocation = tableBody.child(1).select("tbody > tr").last();
-            String date = dateAndLocation.child(0).textNodes().get(0).getWholeText();
-            LocalDateTime localDateTime = this.parseDateTime(date);
-            String loc = lookupLocationAbreviation(dateAndLocation.child(0).child(0).ownText());
-            String phaseName = "finals";
-            String groupName = "";
-            Integer homeScore = null;
-            Integer awayScore = null;
-
-            Location location = locationRepository.findFirstByNameEquals(loc).orElse(new Location(loc));
-            locationRepository.save(location);
-            Phase phase = phaseRepository.findFirstByNameEquals(phaseName).orElse(new Phase(phaseName));
-            phaseRepository.save(phase);
-            if (groupName.equals("")) {
-                groupName = "-";
-            }
-            TournamentGroup tournamentGroup = tournamentGroupRepository.findByNameEquals(groupName)
-                    .orElse(new TournamentGroup(groupName));
-            tournamentGroupRepository.save(tournamentGroup);
-            TournamentTeam homeTeam = tournamentTeamRepository.findTournamentTeamByNameEquals(homeTeamName)
-                    .orElse(new TournamentTeam(homeTeamName, tournamentGroup));
-            tournamentTeamRepository.save(homeTeam);
-            TournamentTeam awayTeam = tournamentTeamRepository.findTournamentTeamByNameEquals(awayTeamName)
-                    .orElse(new TournamentTeam(awayTeamName, tournamentGroup));
-            tournamentTeamRepository.save(awayTeam);
-            Game game = gameRepository.findFirstByHomeTeamEqualsAndAwayTeamEqualsAndDateTimeIsBetween
-                    (homeTeam, awayTeam, localDateTime.minusMinutes(10), localDateTime.plusMinutes(10))
-                    .orElse(new Game(localDateTime, homeScore, awayScore, homeTeam, awayTeam, location, phase));
-            if(game.getHomeTeamGoals() == null && game.getAwayTeamGoals() == null) {
-                game.setHomeTeamGoals(homeScore);
-                game.setAwayTeamGoals(awayScore);
-            }
-            game.setAwayTeam(awayTeam);
-            game.setHomeTeam(homeTeam);
-            game.setLocation(location);
-            game.setPhase(phase);
-            game.setDateTime(localDateTime);
-            gameRepository.save(game);
+    /**
+     * Numbers the games of each phase in the order of the page, a section that couldn't be read only misses games
+     * after the ones numbered already.
+     */
+    private void numberSlots(List<ScrapedGameDTO> games) {
+        Map<String, Integer> slots = new HashMap<>();
+        for (ScrapedGameDTO game : games) {
+            game.setSlot(slots.merge(game.getPhase(), 1, Integer::sum));
+        }
+    }
 
+    private void recordFetchFailure(long start) {
+        fetchFailedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        circuitBreaker.recordFailure();
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    private Elements gameTables(Document doc) {
+        Elements tables = doc.select(GROUP_TABLES);
+        Elements smallFinal = doc.select(SMALL_FINAL_HEADING);
+        if (!smallFinal.isEmpty() && smallFinal.parents().first().nextElementSibling() != null) {
+            tables.add(smallFinal.parents().first().nextElementSibling());
+        }
+        tables.addAll(doc.select(FINAL_TABLES));
+        return tables;
+    }
+
+    private static String hash(Elements elements) {
+        MessageDigest digest = sha256();
+        for (Element element : elements) {
+            digest.update(element.outerHtml().getBytes(StandardCharsets.UTF_8));
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static String hash(byte[] content) {
+        return Base64.getEncoder().encodeToString(sha256().digest(content));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public void scrapeSmallFinal() {
-        Document doc = null;
+    /**
+     * A section that doesn't have the expected layout, e.g. while the page is being edited, doesn't stop the others.
+     */
+    private boolean extract(String section, Runnable extractor) {
         try {
-            doc = Jsoup.connect(WIKIPEDIA_SEARCH_URL).userAgent("Mozilla/5.0").get();
-            Element table = doc.select("h3 > span#Spiel_um_Platz_3").parents().get(0).nextElementSibling();
-            Element tableBody = table.child(0);
-            this.parseGroupTable(tableBody, 11);
-        } catch (IOException e) {
-            e.printStackTrace();
+            extractor.run();
+            return true;
+        } catch (IndexOutOfBoundsException | NullPointerException | NumberFormatException e) {
+            logger.warn("Can't extract the " + section + " from " + fixtureSource.getLocation() + ": " + e);
+            return false;
         }
     }
 
+    private void scrapeGroupToSemiFinal(Document doc, List<ScrapedGameDTO> games) {
+        Elements groups = doc.select(GROUP_TABLES);
+        for (int countGroups = 0; countGroups < groups.size(); countGroups++) {
+            Element group = groups.get(countGroups);
+            this.parseGroupTable(group, countGroups, games);
+        }
+    }
+
+    private void scrapeFinal(Document doc, List<ScrapedGameDTO> games) {
+        Elements tableBodies = doc.select(FINAL_TABLES);
+        Element tableBody = tableBodies.first();
+        Element teams = tableBody.child(0);
+        String homeTeamName = lookupTeamAbreviation(teams.child(0).ownText());
+        String awayTeamName = lookupTeamAbreviation(teams.child(1).ownText());
+        Element dateAndLocation = tableBody.child(1).select("tbody > tr").last();
+        String date = dateAndLocation.child(0).textNodes().get(0).getWholeText();
+        LocalDateTime localDateTime = this.parseDateTime(date);
+        String loc = lookupLocationAbreviation(dateAndLocation.child(0).child(0).ownText());
+        games.add(new ScrapedGameDTO(localDateTime, homeTeamName, awayTeamName, loc, "finals", "-", null, null));
+    }
+
+    private void scrapeSmallFinal(Document doc, List<ScrapedGameDTO> games) {
+        Element table = doc.select(SMALL_FINAL_HEADING).parents().get(0).nextElementSibling();
+        Element tableBody = table.child(0);
+        this.parseGroupTable(tableBody, 11, games);
+    }
+
 
-    private void parseGroupTable(Element group, int countGroups) {
+    void parseGroupTable(Element group, int countGroups, List<ScrapedGameDTO> games) {
         for (int i = 0; i < group.children().size(); i++) {
             Element gameDetails = group.child(i).child(0);
             i++; // Move index to teams and result row
             Element teamsAndResult = group.child(i);
-            this.parseGameInTable(gameDetails, teamsAndResult, countGroups);
+            games.add(this.parseGameInTable(gameDetails, teamsAndResult, countGroups));
         }
     }
 
-    private void parseGameInTable(Element gameDetails, Element teamsAndResult, int countGroups) {
+    ScrapedGameDTO parseGameInTable(Element gameDetails, Element teamsAndResult, int countGroups) {
         String detailsString = gameDetails.textNodes().get(0).text();
         String loc = this.parseLocation(gameDetails);
         LocalDateTime localDateTime = this.parseDateTime(detailsString);
@@ -204,57 +323,24 @@ public class WikipediaScraper {
             scoreText = teamsAndResult.child(3).child(0).ownText();
         }
         Tuple<Integer, Integer> score = this.parseScore(scoreText);
-        Integer homeScore = score.left;
-        Integer awayScore = score.right;
-
-        Location location = locationRepository.findFirstByNameEquals(loc).orElse(new Location(loc));
-        locationRepository.save(location);
-        Phase phase = phaseRepository.findFirstByNameEquals(phaseName).orElse(new Phase(phaseName));
-        phaseRepository.save(phase);
-        if (groupName.equals("")) {
-            groupName = "-";
-        }
-        TournamentGroup tournamentGroup = tournamentGroupRepository.findByNameEquals(groupName)
-                .orElse(new TournamentGroup(groupName));
-        tournamentGroupRepository.save(tournamentGroup);
-        TournamentTeam homeTeam = tournamentTeamRepository.findTournamentTeamByNameEquals(homeTeamName)
-                .orElse(new TournamentTeam(homeTeamName, tournamentGroup));
-        tournamentTeamRepository.save(homeTeam);
-        TournamentTeam awayTeam = tournamentTeamRepository.findTournamentTeamByNameEquals(awayTeamName)
-                .orElse(new TournamentTeam(awayTeamName, tournamentGroup));
-        tournamentTeamRepository.save(awayTeam);
-        Game game = gameRepository.findFirstByHomeTeamEqualsAndAwayTeamEqualsAndDateTimeIsBetween
-                (homeTeam, awayTeam, localDateTime.minusMinutes(10), localDateTime.plusMinutes(10))
-                .orElse(new Game(localDateTime, homeScore, awayScore, homeTeam, awayTeam, location, phase));
-        if(game.getHomeTeamGoals() == null && game.getAwayTeamGoals() == null) {
-            game.setHomeTeamGoals(homeScore);
-            game.setAwayTeamGoals(awayScore);
-        }
-        game.setAwayTeam(awayTeam);
-        game.setHomeTeam(homeTeam);
-        game.setLocation(location);
-        game.setPhase(phase);
-        game.setDateTime(localDateTime);
-        gameRepository.save(game);
+        return new ScrapedGameDTO(localDateTime, homeTeamName, awayTeamName, loc, phaseName, groupName,
+                score.left, score.right);
     }
 
-    private LocalDateTime parseDateTime(String date) {
-        int day = Integer.parseInt(date.split(" ")[1].replace(".", ""));
-        String monthStr = date.split(" ")[2];
-        int month = this.month.getOrDefault(monthStr, 6);
-        int year = Integer.parseInt(date.split(" ")[3].replace(",", ""));
-        String time = date.split(" ")[4].replace("(", "");
-        int hour = Integer.parseInt(time.split(":")[0]);
-        int minute = Integer.parseInt(time.split(":")[1]);
-        LocalDateTime localDateTime = LocalDateTime.now();
-        localDateTime = localDateTime.withDayOfMonth(day)
-                .withMonth(month)
-                .withYear(year)
-                .withHour(hour)
-                .withMinute(minute)
-                .withSecond(0)
-                .withNano(0);
-        return localDateTime;
+    /**
+     * Reads a date like "Do., 14. Juni 2018, 18:00 Uhr", the text is split only once.
+     */
+    LocalDateTime parseDateTime(String date) {
+        String[] parts = date.split(" ");
+        int day = Integer.parseInt(parts[1].replace(".", ""));
+        int month = this.month.getOrDefault(parts[2], 6);
+        int year = Integer.parseInt(parts[3].replace(",", ""));
+        String time = parts[4].replace("(", "");
+        int colon = time.indexOf(':');
+        int hour = Integer.parseInt(time.substring(0, colon));
+        int end = time.indexOf(':', colon + 1);
+        int minute = Integer.parseInt(time.substring(colon + 1, end < 0 ? time.length() : end));
+        return LocalDateTime.of(year, month, day, hour, minute);
     }
 
     private String parseLocation(Element gameDetails) {
@@ -321,15 +407,14 @@ public class WikipediaScraper {
     }
 
     private Tuple<Integer, Integer> parseScore(String score) {
-        String home = score.split(":")[0];
-        String away = score.split(":")[1];
+        String[] goals = score.split(":");
         Integer homeScore = null;
         Integer awayScore = null;
-        if (!home.contains("-")) {
-            homeScore = Integer.parseInt(home);
+        if (!goals[0].contains("-")) {
+            homeScore = Integer.parseInt(goals[0]);
         }
-        if (!away.contains("-")) {
-            awayScore = Integer.parseInt(away);
+        if (!goals[1].contains("-")) {
+            awayScore = Integer.parseInt(goals[1]);
         }
         return new Tuple<>(homeScore, awayScore);
     }
@@ -341,4 +426,27 @@ public class WikipediaScraper {
     private String lookupTeamAbreviation(String team) {
         return teams.getOrDefault(team, "tbd");
     }
+
+    /**
+     * What is known about the page the stored games were last read from.
+     */
+    private static final class PageVersion {
+        static final PageVersion UNKNOWN = new PageVersion(null, null, null, null);
+
+        final String etag;
+        final String lastModified;
+        final String bodyHash;
+        final String tablesHash;
+
+        PageVersion(String etag, String lastModified, String bodyHash, String tablesHash) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.bodyHash = bodyHash;
+            this.tablesHash = tablesHash;
+        }
+
+        PageVersion(FixturePage page, String bodyHash, String tablesHash) {
+            this(page.getEtag(), page.getLastModified(), bodyHash, tablesHash);
+        }
+    }
 }
@@ -39,6 +39,12 @@ public class BetGroupBuilder {
         return this;
     }
 
+    public BetGroupBuilder withScoreSum(int scoreSum, int memberCount) {
+        betGroup.setScoreSum(scoreSum);
+        betGroup.setMemberCount(memberCount);
+        return this;
+    }
+
     public BetGroup build() {
         betGroup.setMembers(users);
         return betGroup;
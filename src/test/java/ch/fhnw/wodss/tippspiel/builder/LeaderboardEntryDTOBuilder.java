@@ -0,0 +1,41 @@
+package ch.fhnw.wodss.tippspiel.builder;
+
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+
+public class LeaderboardEntryDTOBuilder {
+    LeaderboardEntryDTO entry;
+
+    public LeaderboardEntryDTOBuilder() {
+        entry = new LeaderboardEntryDTO();
+    }
+
+    public LeaderboardEntryDTOBuilder withRank(int rank) {
+        entry.setRank(rank);
+        return this;
+    }
+
+    public LeaderboardEntryDTOBuilder withId(long id) {
+        entry.setId(id);
+        return this;
+    }
+
+    public LeaderboardEntryDTOBuilder withName(String name) {
+        entry.setName(name);
+        return this;
+    }
+
+    public LeaderboardEntryDTOBuilder withScore(int score) {
+        entry.setScore(score);
+        return this;
+    }
+
+    public LeaderboardEntryDTOBuilder withExactHits(int exactHits) {
+        entry.setExactHits(exactHits);
+        return this;
+    }
+
+    public LeaderboardEntryDTO build() {
+        return entry;
+    }
+
+}
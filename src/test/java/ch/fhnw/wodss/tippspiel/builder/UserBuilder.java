@@ -66,6 +66,12 @@ public class UserBuilder {
         return this;
     }
 
+    public UserBuilder withTotalScore(int totalScore, int exactHits){
+        user.setTotalScore(totalScore);
+        user.setExactHits(exactHits);
+        return this;
+    }
+
     public User build() {
         Set<Role> roles = this.roles.stream().map(roleName -> {
             Role role = new Role();
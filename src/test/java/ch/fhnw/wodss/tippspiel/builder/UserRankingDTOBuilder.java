@@ -35,6 +35,11 @@ public class UserRankingDTOBuilder {
         return this;
     }
 
+    public UserRankingDTOBuilder withExactHits(int exactHits) {
+        user.setExactHits(exactHits);
+        return this;
+    }
+
 
     public UserRankingDTO build() {
         return user;
@@ -2,15 +2,20 @@ package ch.fhnw.wodss.tippspiel.controller;
 
 import ch.fhnw.wodss.tippspiel.TestUtil;
 import ch.fhnw.wodss.tippspiel.builder.BetGroupDTOBuilder;
+import ch.fhnw.wodss.tippspiel.builder.LeaderboardEntryDTOBuilder;
 import ch.fhnw.wodss.tippspiel.builder.RestBetGroupDTOBuilder;
 import ch.fhnw.wodss.tippspiel.builder.UserAllBetGroupDTOBuilder;
 import ch.fhnw.wodss.tippspiel.builder.UserBuilder;
 import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetGroupDTO;
+import ch.fhnw.wodss.tippspiel.dto.BetGroupInviteDTO;
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestBetGroupDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserAllBetGroupDTO;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotAllowedException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import ch.fhnw.wodss.tippspiel.service.BetGroupLeaderboardService;
 import ch.fhnw.wodss.tippspiel.service.BetGroupService;
 import ch.fhnw.wodss.tippspiel.service.UserService;
 import org.junit.Before;
@@ -29,6 +34,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -62,6 +68,9 @@ public class BetGroupControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private BetGroupLeaderboardService betGroupLeaderboardServiceMock;
+
     @Before
     public void mockUserService() {
         User user = new UserBuilder()
@@ -237,6 +246,66 @@ public class BetGroupControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    public void getRanking_ok() throws Exception {
+        List<LeaderboardEntryDTO> entries = new ArrayList<>();
+        entries.add(new LeaderboardEntryDTOBuilder().withRank(1).withId(2L).withName("Tom").withScore(20).withExactHits(2).build());
+        entries.add(new LeaderboardEntryDTOBuilder().withRank(2).withId(1L).withName("Yanick").withScore(10).withExactHits(1).build());
+        when(betGroupLeaderboardServiceMock.getPage(1L, 0, 20)).thenReturn(entries);
+        mockMvc.perform(get("/betgroups/{id}/ranking", 1L)
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].rank", equalTo(1)))
+                .andExpect(jsonPath("$.[0].id", equalTo(2)))
+                .andExpect(jsonPath("$.[0].exactHits", equalTo(2)))
+                .andExpect(jsonPath("$.[1].rank", equalTo(2)))
+                .andExpect(jsonPath("$.[1].score", equalTo(10)));
+        verify(betGroupLeaderboardServiceMock, times(1)).getPage(1L, 0, 20);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void getRanking_notFound() throws Exception {
+        when(betGroupLeaderboardServiceMock.getPage(1L, 0, 20)).thenThrow(new ResourceNotFoundException(""));
+        mockMvc.perform(get("/betgroups/{id}/ranking", 1L)
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = {"UNVERIFIED"})
+    public void getRanking_asRoleUnverified_accessDenied() throws Exception {
+        mockMvc.perform(get("/betgroups/{id}/ranking", 1L).headers(buildCORSHeaders()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void createInvite_ok() throws Exception {
+        BetGroupInviteDTO invite = new BetGroupInviteDTO(1L, "1.1700000000.signature", new Date(1700000000000L));
+        when(betGroupServiceMock.createInvite(eq(1L), any())).thenReturn(invite);
+        mockMvc.perform(post("/betgroups/{id}/invites", 1L)
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.betGroupId", equalTo(1)))
+                .andExpect(jsonPath("$.token", equalTo("1.1700000000.signature")));
+        verify(betGroupServiceMock, times(1)).createInvite(eq(1L), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void createInvite_notMember() throws Exception {
+        when(betGroupServiceMock.createInvite(eq(1L), any())).thenThrow(new ResourceNotAllowedException(""));
+        mockMvc.perform(post("/betgroups/{id}/invites", 1L)
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     public void addBetGroup_ok() throws Exception {
@@ -109,6 +109,28 @@ public class BetGroupMembershipControllerTest {
         Mockito.verify(betGroupServiceMock, times(1)).addUser(eq(1L), eq("test123"), any());
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    public void addUser_withInvite_ShouldReturnAdded() throws Exception {
+        BetGroupDTO betGroupDTO = new BetGroupDTOBuilder()
+                .withId(1L)
+                .withName("FHNW")
+                .withScore(0)
+                .withUserIds(new ArrayList<>())
+                .build();
+        when(betGroupServiceMock.addUserWithInvite(eq(1L), eq("1.1700000000.signature"), any())).thenReturn(betGroupDTO);
+        mockMvc.perform(post("/betgroupmemberships/{id}", 1L)
+                .param("invite", "1.1700000000.signature")
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json")
+                .contentType("text/plain")
+        )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", equalTo(1)));
+        verify(betGroupServiceMock, times(1)).addUserWithInvite(eq(1L), eq("1.1700000000.signature"), any());
+        verify(betGroupServiceMock, never()).addUser(any(), any(), any());
+    }
+
     @Test
     @WithMockUser(roles = {"UNVERIFIED"})
     public void addUser_asRoleUnverified_accessDenied() throws Exception {
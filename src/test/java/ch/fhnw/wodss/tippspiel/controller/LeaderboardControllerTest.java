@@ -0,0 +1,146 @@
+package ch.fhnw.wodss.tippspiel.controller;
+
+import ch.fhnw.wodss.tippspiel.builder.LeaderboardEntryDTOBuilder;
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.service.LeaderboardService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class LeaderboardControllerTest {
+
+    @Value("${security.cors.allowedOrigins}")
+    private String corsAllowedOrigins;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LeaderboardService leaderboardServiceMock;
+
+    @Before
+    public void setUp() {
+        Mockito.reset(leaderboardServiceMock);
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @Test
+    public void getPage_ShouldReturnEntries() throws Exception {
+        List<LeaderboardEntryDTO> entries = new ArrayList<>();
+        entries.add(new LeaderboardEntryDTOBuilder().withRank(1).withId(1L).withName("Yanick").withScore(20).withExactHits(2).build());
+        entries.add(new LeaderboardEntryDTOBuilder().withRank(2).withId(2L).withName("Tom").withScore(10).withExactHits(1).build());
+        when(leaderboardServiceMock.getPage(0, 2)).thenReturn(entries);
+        mockMvc.perform(get("/ranking")
+                .param("page", "0")
+                .param("size", "2")
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].rank", equalTo(1)))
+                .andExpect(jsonPath("$.[0].name", equalTo("Yanick")))
+                .andExpect(jsonPath("$.[0].exactHits", equalTo(2)))
+                .andExpect(jsonPath("$.[1].rank", equalTo(2)))
+                .andExpect(jsonPath("$.[1].score", equalTo(10)));
+        verify(leaderboardServiceMock, times(1)).getPage(0, 2);
+    }
+
+    @Test
+    public void getTop_ShouldReturnEntries() throws Exception {
+        List<LeaderboardEntryDTO> entries = new ArrayList<>();
+        entries.add(new LeaderboardEntryDTOBuilder().withRank(1).withId(1L).withName("Yanick").withScore(20).withExactHits(2).build());
+        when(leaderboardServiceMock.getTop(10)).thenReturn(entries);
+        mockMvc.perform(get("/ranking/top")
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", equalTo(1)))
+                .andExpect(jsonPath("$.[0].score", equalTo(20)));
+        verify(leaderboardServiceMock, times(1)).getTop(10);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void getRank_ShouldReturnEntry() throws Exception {
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTOBuilder().withRank(3).withId(1L).withName("Yanick").withScore(7).withExactHits(0).build();
+        when(leaderboardServiceMock.getRank(1L)).thenReturn(entry);
+        mockMvc.perform(get("/ranking/users/{id}", 1L)
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rank", equalTo(3)))
+                .andExpect(jsonPath("$.score", equalTo(7)));
+        verify(leaderboardServiceMock, times(1)).getRank(1L);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void getRank_UserNotFound_ShouldReturnNotFound() throws Exception {
+        when(leaderboardServiceMock.getRank(1L)).thenThrow(new ResourceNotFoundException(""));
+        mockMvc.perform(get("/ranking/users/{id}", 1L)
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = {"UNVERIFIED"})
+    public void getRank_asRoleUnverified_accessDenied() throws Exception {
+        mockMvc.perform(get("/ranking/users/{id}", 1L).headers(buildCORSHeaders()))
+                .andExpect(status().isForbidden());
+        verify(leaderboardServiceMock, never()).getRank(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void getNeighbours_ShouldReturnEntries() throws Exception {
+        List<LeaderboardEntryDTO> entries = new ArrayList<>();
+        entries.add(new LeaderboardEntryDTOBuilder().withRank(1).withId(2L).withName("Tom").withScore(10).withExactHits(1).build());
+        entries.add(new LeaderboardEntryDTOBuilder().withRank(2).withId(1L).withName("Yanick").withScore(7).withExactHits(0).build());
+        when(leaderboardServiceMock.getNeighbours(1L, 1)).thenReturn(entries);
+        mockMvc.perform(get("/ranking/users/{id}/neighbours", 1L)
+                .param("range", "1")
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", equalTo(2)))
+                .andExpect(jsonPath("$.[1].id", equalTo(1)));
+        verify(leaderboardServiceMock, times(1)).getNeighbours(1L, 1);
+    }
+
+    private HttpHeaders buildCORSHeaders() {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add("X-Requested-With", "JUNIT");
+        httpHeaders.add("Origin", corsAllowedOrigins);
+        return httpHeaders;
+    }
+
+}
@@ -5,6 +5,8 @@ import ch.fhnw.wodss.tippspiel.builder.*;
 import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.*;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.exception.ServiceBusyException;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import ch.fhnw.wodss.tippspiel.service.UserService;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,6 +33,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -371,6 +374,26 @@ public class UserControllerTest {
         Mockito.verify(userServiceMock, times(1)).addUser(eq(restUserDTO));
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    public void create_PasswordHashingBusy_ShouldReturnServiceUnavailable() throws Exception {
+        RestUserDTO restUserDTO = new RestUserDTOBuilder()
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .withPassword("test123test123test123")
+                .withReminders(true)
+                .withDailyResults(true)
+                .build();
+        when(userServiceMock.addUser(eq(restUserDTO))).thenThrow(new ServiceBusyException("Busy", 5));
+        mockMvc.perform(post("/users")
+                .headers(buildCORSHeaders())
+                .header("Accept", "application/json")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(restUserDTO)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     public void create_InvalidUserFormat_ShouldReturnBadRequest() throws Exception {
@@ -592,14 +615,14 @@ public class UserControllerTest {
                 .withReminders(true)
                 .withDailyResults(true)
                 .build();
-        when(userServiceMock.updateUser(eq(user), eq(restUserDTO))).thenReturn(userDTO);
+        when(userServiceMock.updateUser(eq(UserPrincipal.of(user)), eq(restUserDTO))).thenReturn(userDTO);
         mockMvc.perform(put("/users/{id}", 1L)
                 .headers(buildCORSHeaders())
                 .header("Accept", "application/json")
                 .contentType(TestUtil.APPLICATION_JSON_UTF8)
                 .content(TestUtil.convertObjectToJsonBytes(restUserDTO)))
                 .andExpect(status().isBadRequest());
-        Mockito.verify(userServiceMock, times(0)).updateUser(eq(user), eq(restUserDTO));
+        Mockito.verify(userServiceMock, times(0)).updateUser(eq(UserPrincipal.of(user)), eq(restUserDTO));
     }
 
     @Test
@@ -680,14 +703,14 @@ public class UserControllerTest {
                 .withReminders(true)
                 .withDailyResults(true)
                 .build();
-        when(userServiceMock.updateUser(eq(user), eq(restUserDTO))).thenReturn(userDTO);
+        when(userServiceMock.updateUser(eq(UserPrincipal.of(user)), eq(restUserDTO))).thenReturn(userDTO);
         mockMvc.perform(put("/users/{id}", 1L)
                 .headers(buildCORSHeaders())
                 .header("Accept", "application/json")
                 .contentType(TestUtil.APPLICATION_JSON_UTF8)
                 .content(TestUtil.convertObjectToJsonBytes(userDTO)))
                 .andExpect(status().isForbidden());
-        Mockito.verify(userServiceMock, times(0)).updateUser(eq(user), eq(restUserDTO));
+        Mockito.verify(userServiceMock, times(0)).updateUser(eq(UserPrincipal.of(user)), eq(restUserDTO));
     }
 
     @Test
@@ -739,7 +762,7 @@ public class UserControllerTest {
                 .headers(buildCORSHeaders())
                 .header("Accept", "application/json"))
                 .andExpect(status().isForbidden());
-        Mockito.verify(userServiceMock, times(0)).deleteUser(eq(1L), eq(user));
+        Mockito.verify(userServiceMock, times(0)).deleteUser(eq(1L), eq(UserPrincipal.of(user)));
     }
 
     @Test
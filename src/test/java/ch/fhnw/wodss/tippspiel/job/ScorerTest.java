@@ -0,0 +1,180 @@
+package ch.fhnw.wodss.tippspiel.job;
+
+import ch.fhnw.wodss.tippspiel.builder.GameBuilder;
+import ch.fhnw.wodss.tippspiel.domain.Game;
+import ch.fhnw.wodss.tippspiel.event.GameResultEvent;
+import ch.fhnw.wodss.tippspiel.event.UserScoreChange;
+import ch.fhnw.wodss.tippspiel.event.UserScoresChangedEvent;
+import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
+import ch.fhnw.wodss.tippspiel.persistance.BetRepository;
+import ch.fhnw.wodss.tippspiel.persistance.BetScoreView;
+import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
+import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(Scorer.class)
+public class ScorerTest {
+
+    @Autowired
+    Scorer scorer;
+
+    @MockBean
+    BetRepository betRepositoryMock;
+
+    @MockBean
+    BetGroupRepository betGroupRepositoryMock;
+
+    @MockBean
+    GameRepository gameRepositoryMock;
+
+    @MockBean
+    UserRepository userRepositoryMock;
+
+    @Autowired
+    UserScoresChangedEventRecorder userScoresChangedEventRecorder;
+
+    @TestConfiguration
+    static class UserScoresChangedEventRecorder {
+        final List<UserScoresChangedEvent> events = new ArrayList<>();
+
+        @EventListener
+        public void record(UserScoresChangedEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Before
+    public void setup() {
+        Mockito.reset(betRepositoryMock, betGroupRepositoryMock, gameRepositoryMock, userRepositoryMock);
+        userScoresChangedEventRecorder.events.clear();
+    }
+
+    @Test
+    public void onGameResult_firstResult() {
+        givenGame(2, 1);
+        List<BetScoreView> bets = Arrays.asList(
+                bet(1L, 1L, 2, 1, null),
+                bet(2L, 2L, 1, 0, null),
+                bet(3L, 3L, 0, 2, null));
+        when(betRepositoryMock.getScoreViewsByGame(1L)).thenReturn(bets);
+
+        scorer.onGameResult(new GameResultEvent(1L, 2, 1));
+
+        verify(betRepositoryMock, times(1)).setScore(10, Collections.singletonList(1L));
+        verify(betRepositoryMock, times(1)).setScore(3, Collections.singletonList(2L));
+        verify(betRepositoryMock, times(1)).setScore(0, Collections.singletonList(3L));
+        verify(userRepositoryMock, times(1)).addToTotalScore(10, 1, Collections.singletonList(1L));
+        verify(userRepositoryMock, times(1)).addToTotalScore(3, 0, Collections.singletonList(2L));
+        verify(userRepositoryMock, times(2)).addToTotalScore(anyInt(), anyInt(), anyList());
+
+        assertEquals(1, userScoresChangedEventRecorder.events.size());
+        UserScoresChangedEvent event = userScoresChangedEventRecorder.events.get(0);
+        assertEquals((Long) 1L, event.getGameId());
+        assertNotNull(event.getScoredAt());
+        assertEquals(2, event.getChanges().size());
+        assertTrue(event.getChanges().contains(new UserScoreChange(1L, 10, 1)));
+        assertTrue(event.getChanges().contains(new UserScoreChange(2L, 3, 0)));
+    }
+
+    @Test
+    public void onGameResult_correction() {
+        // scored for 2:1 before, corrected to 1:1
+        givenGame(1, 1);
+        List<BetScoreView> bets = Arrays.asList(
+                bet(1L, 1L, 2, 1, 10),
+                bet(2L, 2L, 1, 0, 3),
+                bet(3L, 3L, 0, 2, 0));
+        when(betRepositoryMock.getScoreViewsByGame(1L)).thenReturn(bets);
+
+        scorer.onGameResult(new GameResultEvent(1L, 1, 1));
+
+        verify(betRepositoryMock, times(1)).setScore(1, Arrays.asList(1L, 2L));
+        verify(betRepositoryMock, times(1)).setScore(anyInt(), anyList());
+        verify(userRepositoryMock, times(1)).addToTotalScore(-9, -1, Collections.singletonList(1L));
+        verify(userRepositoryMock, times(1)).addToTotalScore(-2, 0, Collections.singletonList(2L));
+        verify(userRepositoryMock, times(2)).addToTotalScore(anyInt(), anyInt(), anyList());
+
+        assertEquals(1, userScoresChangedEventRecorder.events.size());
+        List<UserScoreChange> changes = userScoresChangedEventRecorder.events.get(0).getChanges();
+        assertEquals(2, changes.size());
+        assertTrue(changes.contains(new UserScoreChange(1L, -9, -1)));
+        assertTrue(changes.contains(new UserScoreChange(2L, -2, 0)));
+    }
+
+    @Test
+    public void onGameResult_unchangedRescore() {
+        givenGame(2, 1);
+        List<BetScoreView> bets = Arrays.asList(
+                bet(1L, 1L, 2, 1, 10),
+                bet(2L, 2L, 1, 0, 3),
+                bet(3L, 3L, 0, 2, 0));
+        when(betRepositoryMock.getScoreViewsByGame(1L)).thenReturn(bets);
+
+        scorer.onGameResult(new GameResultEvent(1L, 2, 1));
+
+        verify(betRepositoryMock, never()).setScore(anyInt(), anyList());
+        verify(userRepositoryMock, never()).addToTotalScore(anyInt(), anyInt(), anyList());
+        assertTrue(userScoresChangedEventRecorder.events.isEmpty());
+    }
+
+    @Test
+    public void onGameResult_noResult() {
+        Game game = new GameBuilder()
+                .withId(1L)
+                .withDateTime(LocalDateTime.now())
+                .build();
+        when(gameRepositoryMock.findByIdForScoring(1L)).thenReturn(Optional.of(game));
+
+        scorer.onGameResult(new GameResultEvent(1L, null, null));
+
+        verify(betRepositoryMock, never()).getScoreViewsByGame(1L);
+        assertTrue(userScoresChangedEventRecorder.events.isEmpty());
+    }
+
+    private void givenGame(int homeTeamGoals, int awayTeamGoals) {
+        Game game = new GameBuilder()
+                .withId(1L)
+                .withDateTime(LocalDateTime.now())
+                .withHomeTeamGoals(homeTeamGoals)
+                .withAwayTeamGoals(awayTeamGoals)
+                .build();
+        when(gameRepositoryMock.findByIdForScoring(1L)).thenReturn(Optional.of(game));
+    }
+
+    private BetScoreView bet(Long id, Long userId, Integer homeTeamGoals, Integer awayTeamGoals, Integer score) {
+        BetScoreView bet = Mockito.mock(BetScoreView.class);
+        when(bet.getId()).thenReturn(id);
+        when(bet.getUserId()).thenReturn(userId);
+        when(bet.getHomeTeamGoals()).thenReturn(homeTeamGoals);
+        when(bet.getAwayTeamGoals()).thenReturn(awayTeamGoals);
+        when(bet.getScore()).thenReturn(score);
+        return bet;
+    }
+}
@@ -0,0 +1,103 @@
+package ch.fhnw.wodss.tippspiel.security;
+
+import ch.fhnw.wodss.tippspiel.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class LoginThrottleTest {
+
+    private MeterRegistry meterRegistry;
+    private LoginThrottle loginThrottle;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginThrottle = new LoginThrottle(meterRegistry, 3, 100, 60);
+    }
+
+    @Test
+    public void acquire_failedAttemptsCountAgainstAccount() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire("Tom", "10.0.0.1");
+        }
+        try {
+            loginThrottle.acquire("tom", "10.0.0.2");
+            Assert.fail();
+        } catch (TooManyRequestsException e) {
+            Assert.assertTrue(e.getRetryAfterSeconds() > 0);
+        }
+        Assert.assertEquals(1, meterRegistry.counter("login.throttled", "by", "account").count(), 0);
+        loginThrottle.acquire("ben", "10.0.0.1");
+    }
+
+    @Test
+    public void succeeded_clearsAccount() {
+        for (int i = 0; i < 10; i++) {
+            loginThrottle.acquire("tom", "10.0.0.1");
+            loginThrottle.succeeded("tom");
+        }
+    }
+
+    @Test
+    public void released_givesBackSlot() {
+        for (int i = 0; i < 10; i++) {
+            loginThrottle.acquire("tom", "10.0.0.1");
+            loginThrottle.released("tom");
+        }
+    }
+
+    @Test
+    public void acquire_ipLimit() {
+        LoginThrottle ipThrottle = new LoginThrottle(meterRegistry, 100, 2, 60);
+        ipThrottle.acquire("tom", "10.0.0.1");
+        ipThrottle.acquire("ben", "10.0.0.1");
+        try {
+            ipThrottle.acquire("anna", "10.0.0.1");
+            Assert.fail();
+        } catch (TooManyRequestsException e) {
+            Assert.assertEquals(1, meterRegistry.counter("login.throttled", "by", "ip").count(), 0);
+        }
+        ipThrottle.acquire("anna", "10.0.0.2");
+    }
+
+    @Test
+    public void acquire_concurrentBurstStaysWithinLimit() throws Exception {
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                String remoteAddress = "10.0.0." + i;
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        loginThrottle.acquire("tom", remoteAddress);
+                        return true;
+                    } catch (TooManyRequestsException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int admitted = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(10, TimeUnit.SECONDS)) admitted++;
+            }
+            Assert.assertEquals(3, admitted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
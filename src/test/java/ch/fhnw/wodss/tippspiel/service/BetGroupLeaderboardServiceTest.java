@@ -0,0 +1,109 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.builder.UserRankingDTOBuilder;
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
+import ch.fhnw.wodss.tippspiel.event.BetGroupsChangedEvent;
+import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(BetGroupLeaderboardService.class)
+public class BetGroupLeaderboardServiceTest {
+
+    @TestConfiguration
+    static class CacheConfiguration {
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(BetGroupLeaderboardService.CACHE_NAME, "betGroups");
+        }
+    }
+
+    @Autowired
+    BetGroupLeaderboardService betGroupLeaderboardService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    BetGroupRepository betGroupRepositoryMock;
+
+    @Before
+    public void setup() {
+        Mockito.reset(betGroupRepositoryMock);
+        cacheManager.getCache(BetGroupLeaderboardService.CACHE_NAME).clear();
+        List<UserRankingDTO> members = new ArrayList<>();
+        members.add(new UserRankingDTOBuilder().withId(2L).withName("Tom").withScore(25).withExactHits(2).build());
+        members.add(new UserRankingDTOBuilder().withId(1L).withName("Yanick").withScore(10).withExactHits(1).build());
+        members.add(new UserRankingDTOBuilder().withId(3L).withName("Fred").withScore(10).withExactHits(1).build());
+        members.add(new UserRankingDTOBuilder().withId(4L).withName("Anna").withScore(10).withExactHits(0).build());
+        when(betGroupRepositoryMock.getRanking(1L)).thenReturn(members);
+    }
+
+    @Test
+    public void getPage_ok() {
+        List<LeaderboardEntryDTO> result = betGroupLeaderboardService.getPage(1L, 0, 10);
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals((Integer) 1, result.get(0).getRank());
+        Assert.assertEquals("Tom", result.get(0).getName());
+        Assert.assertEquals((Integer) 2, result.get(1).getRank());
+        Assert.assertEquals((Integer) 2, result.get(2).getRank());
+        Assert.assertEquals((Integer) 4, result.get(3).getRank());
+        Assert.assertEquals((Integer) 0, result.get(3).getExactHits());
+        verify(betGroupRepositoryMock, times(1)).getRanking(1L);
+    }
+
+    @Test
+    public void getPage_secondPage() {
+        List<LeaderboardEntryDTO> result = betGroupLeaderboardService.getPage(1L, 1, 3);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals((Long) 4L, result.get(0).getId());
+        Assert.assertTrue(betGroupLeaderboardService.getPage(1L, 2, 3).isEmpty());
+    }
+
+    @Test
+    public void getPage_cached() {
+        betGroupLeaderboardService.getPage(1L, 0, 2);
+        betGroupLeaderboardService.getPage(1L, 1, 2);
+        verify(betGroupRepositoryMock, times(1)).getRanking(1L);
+    }
+
+    @Test
+    public void onBetGroupsChanged_evictsRanking() {
+        betGroupLeaderboardService.getPage(1L, 0, 2);
+        betGroupLeaderboardService.onBetGroupsChanged(new BetGroupsChangedEvent(Collections.singletonList(1L)));
+        betGroupLeaderboardService.getPage(1L, 0, 2);
+        verify(betGroupRepositoryMock, times(2)).getRanking(1L);
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void getPage_notFound() {
+        when(betGroupRepositoryMock.getRanking(2L)).thenReturn(new ArrayList<>());
+        betGroupLeaderboardService.getPage(2L, 0, 10);
+    }
+
+    @Test(expected = IllegalActionException.class)
+    public void getPage_invalidSize() {
+        betGroupLeaderboardService.getPage(1L, 0, 0);
+    }
+}
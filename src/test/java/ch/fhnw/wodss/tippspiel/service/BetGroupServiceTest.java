@@ -3,13 +3,20 @@ package ch.fhnw.wodss.tippspiel.service;
 import ch.fhnw.wodss.tippspiel.builder.*;
 import ch.fhnw.wodss.tippspiel.domain.*;
 import ch.fhnw.wodss.tippspiel.dto.BetGroupDTO;
+import ch.fhnw.wodss.tippspiel.dto.BetGroupInviteDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestBetGroupDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserAllBetGroupDTO;
+import ch.fhnw.wodss.tippspiel.event.UserScoreChange;
+import ch.fhnw.wodss.tippspiel.event.UserScoresChangedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotAllowedException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.persistance.BetGroupMembershipView;
 import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
 import ch.fhnw.wodss.tippspiel.security.Argon2PasswordEncoder;
+import ch.fhnw.wodss.tippspiel.security.BetGroupInviteSigner;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,23 +24,31 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.verify;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(BetGroupService.class)
+@Import(BetGroupInviteSigner.class)
 public class BetGroupServiceTest {
 
     @Autowired
     BetGroupService betGroupService;
+    @Autowired
+    BetGroupInviteSigner inviteSigner;
     @MockBean
     Argon2PasswordEncoder argon2PasswordEncoderMock;
 
@@ -197,11 +212,13 @@ public class BetGroupServiceTest {
                 .withId(1L)
                 .withName("Tom")
                 .withEmail("tom.ohme@gmx.ch")
+                .withTotalScore(10, 1)
                 .build();
         BetGroup betGroup = new BetGroupBuilder()
                 .withId(1L)
                 .withName("FHNW")
-                .withScore(0)
+                .withScore(20)
+                .withScoreSum(20, 1)
                 .withPassword("hash")
                 .build();
         when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
@@ -212,13 +229,185 @@ public class BetGroupServiceTest {
         when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
         when(betGroupRepositoryMock.saveAndFlush(any())).thenReturn(betGroup);
 
-        BetGroupDTO result = betGroupService.addUser(1L, betGroup.getPassword(), user);
+        BetGroupDTO result = betGroupService.addUser(1L, betGroup.getPassword(), UserPrincipal.of(user));
         assertEquals(betGroup.getId(), result.getId());
         assertEquals(betGroup.getName(), result.getName());
-        assertEquals(betGroup.getScore(), result.getScore());
+        assertEquals((Integer) 15, result.getScore());
         assertEquals(betGroup.getMembers().get(0).getId(), result.getUserIds().get(0));
+        assertEquals(2, betGroup.getMemberCount());
+        assertEquals(30, betGroup.getScoreSum());
+
+        verify(betGroupRepositoryMock, times(1)).addMember(1L, 1, 10);
+    }
+
+    @Test
+    public void addUserWithInvite_ok() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .withTotalScore(10, 1)
+                .build();
+        BetGroup betGroup = new BetGroupBuilder()
+                .withId(1L)
+                .withName("FHNW")
+                .withScore(20)
+                .withScoreSum(20, 1)
+                .withPassword("hash")
+                .build();
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
+        when(betGroupRepositoryMock.saveAndFlush(any())).thenReturn(betGroup);
+        String token = inviteSigner.sign(1L, Instant.now().plusSeconds(60));
+
+        BetGroupDTO result = betGroupService.addUserWithInvite(1L, token, UserPrincipal.of(user));
+        assertEquals(betGroup.getId(), result.getId());
+        assertEquals(2, betGroup.getMemberCount());
+        verify(argon2PasswordEncoderMock, never()).matches(any(), any());
+    }
+
+    @Test
+    public void addUser_memberOfOtherBetGroup() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .withTotalScore(10, 1)
+                .build();
+        BetGroup otherBetGroup = new BetGroupBuilder()
+                .withId(2L)
+                .withName("ETH")
+                .withScoreSum(10, 1)
+                .withMember(user)
+                .build();
+        user.getBetGroups().add(otherBetGroup);
+        when(betGroupRepositoryMock.existsBetGroupsByMembersContaining(user)).thenReturn(true);
+        BetGroup betGroup = new BetGroupBuilder()
+                .withId(1L)
+                .withName("FHNW")
+                .withScoreSum(20, 1)
+                .withPassword("hash")
+                .build();
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
+        when(betGroupRepositoryMock.saveAndFlush(any())).thenReturn(betGroup);
+        when(argon2PasswordEncoderMock.matches("secret", "hash")).thenReturn(true);
+
+        BetGroupDTO result = betGroupService.addUser(1L, "secret", UserPrincipal.of(user));
+        assertEquals((Long) 1L, result.getId());
+        assertTrue(betGroup.getMembers().contains(user));
+        assertEquals(2, user.getBetGroups().size());
+        verify(betGroupRepositoryMock, times(1)).addMember(1L, 1, 10);
+    }
+
+    @Test
+    public void addUserWithInvite_memberOfOtherBetGroup() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .withTotalScore(10, 1)
+                .build();
+        BetGroup otherBetGroup = new BetGroupBuilder()
+                .withId(2L)
+                .withName("ETH")
+                .withScoreSum(10, 1)
+                .withMember(user)
+                .build();
+        user.getBetGroups().add(otherBetGroup);
+        when(betGroupRepositoryMock.existsBetGroupsByMembersContaining(user)).thenReturn(true);
+        BetGroup betGroup = new BetGroupBuilder()
+                .withId(1L)
+                .withName("FHNW")
+                .withScoreSum(20, 1)
+                .withPassword("hash")
+                .build();
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
+        when(betGroupRepositoryMock.saveAndFlush(any())).thenReturn(betGroup);
+        String token = inviteSigner.sign(1L, Instant.now().plusSeconds(60));
+
+        BetGroupDTO result = betGroupService.addUserWithInvite(1L, token, UserPrincipal.of(user));
+        assertEquals((Long) 1L, result.getId());
+        assertTrue(betGroup.getMembers().contains(user));
+        verify(betGroupRepositoryMock, times(1)).addMember(1L, 1, 10);
+    }
+
+    @Test(expected = IllegalActionException.class)
+    public void addUser_alreadyMember() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .build();
+        BetGroup betGroup = new BetGroupBuilder()
+                .withId(1L)
+                .withName("FHNW")
+                .withMember(user)
+                .build();
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
 
-        verify(betGroupRepositoryMock, times(1)).existsBetGroupsByMembersContaining(user);
+        betGroupService.addUser(1L, null, UserPrincipal.of(user));
+    }
+
+    @Test
+    public void addUserWithInvite_rejected() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .build();
+        BetGroup betGroup = new BetGroupBuilder()
+                .withId(1L)
+                .withName("FHNW")
+                .withScore(0)
+                .withPassword("hash")
+                .build();
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
+        String expired = inviteSigner.sign(1L, Instant.now().minusSeconds(1));
+        String otherGroup = inviteSigner.sign(2L, Instant.now().plusSeconds(60));
+        String valid = inviteSigner.sign(1L, Instant.now().plusSeconds(60));
+        String tampered = valid.replaceFirst("^1\\.\\d+", "1." + (Instant.now().getEpochSecond() + 3600));
+        for (String token : Arrays.asList(expired, otherGroup, tampered, "1.2.3", null)) {
+            try {
+                betGroupService.addUserWithInvite(1L, token, UserPrincipal.of(user));
+                throw new AssertionError("Accepted invite " + token);
+            } catch (ResourceNotAllowedException e) {
+                // expected
+            }
+        }
+        verify(betGroupRepositoryMock, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void createInvite_ok() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .build();
+        when(betGroupRepositoryMock.getMemberships(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(membership(1L, 1L)));
+
+        BetGroupInviteDTO invite = betGroupService.createInvite(1L, UserPrincipal.of(user));
+        assertEquals((Long) 1L, invite.getBetGroupId());
+        assertTrue(invite.getExpires().toInstant().isAfter(Instant.now()));
+        assertTrue(inviteSigner.isValid(invite.getToken(), 1L));
+        assertFalse(inviteSigner.isValid(invite.getToken(), 2L));
+    }
+
+    @Test(expected = ResourceNotAllowedException.class)
+    public void createInvite_notMember() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .build();
+        when(betGroupRepositoryMock.getMemberships(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(membership(1L, 2L)));
+        betGroupService.createInvite(1L, UserPrincipal.of(user));
     }
 
     @Test
@@ -241,9 +430,113 @@ public class BetGroupServiceTest {
         when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
         when(betGroupRepositoryMock.save(any())).thenReturn(betGroup);
 
-        betGroupService.removeUserFromBetGroup(1L, user);
+        betGroupService.removeUserFromBetGroup(1L, UserPrincipal.of(user));
+
+        verify(betGroupRepositoryMock, times(1)).saveAndFlush(betGroup);
+    }
+
+    @Test
+    public void removeUserFromBetGroup_notMember() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .withTotalScore(10, 1)
+                .build();
+        User user2 = new UserBuilder()
+                .withId(2L)
+                .withName("Yanick")
+                .withEmail("yanick.schraner@gmail.com")
+                .withTotalScore(20, 2)
+                .build();
+        BetGroup betGroup = new BetGroupBuilder()
+                .withId(2L)
+                .withName("ETH")
+                .withScore(20)
+                .withScoreSum(20, 1)
+                .withMember(user2)
+                .build();
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(betGroupRepositoryMock.findById(2L)).thenReturn(Optional.ofNullable(betGroup));
+
+        betGroupService.removeUserFromBetGroup(2L, UserPrincipal.of(user));
+
+        assertEquals(1, betGroup.getMemberCount());
+        assertEquals(20, betGroup.getScoreSum());
+        assertEquals(1, betGroup.getMembers().size());
+        verify(betGroupRepositoryMock, never()).saveAndFlush(any());
+        verify(betGroupRepositoryMock, never()).addMember(any(), anyInt(), anyInt());
+        verify(betGroupRepositoryMock, never()).deleteById(any());
+    }
+
+    @Test
+    public void removeUserFromBetGroup_updatesScore() {
+        User user = new UserBuilder()
+                .withId(1L)
+                .withName("Tom")
+                .withEmail("tom.ohme@gmx.ch")
+                .withTotalScore(10, 1)
+                .build();
+        User user2 = new UserBuilder()
+                .withId(2L)
+                .withName("Yanick")
+                .withEmail("yanick.schraner@gmail.com")
+                .withTotalScore(20, 2)
+                .build();
+        BetGroup betGroup = new BetGroupBuilder()
+                .withId(1L)
+                .withName("FHNW")
+                .withScore(15)
+                .withScoreSum(30, 2)
+                .withMember(user)
+                .withMember(user2)
+                .build();
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(betGroupRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(betGroup));
+
+        betGroupService.removeUserFromBetGroup(1L, UserPrincipal.of(user));
 
-        verify(betGroupRepositoryMock, times(1)).existsBetGroupsByMembersContaining(user);
+        assertEquals(1, betGroup.getMemberCount());
+        assertEquals(20, betGroup.getScoreSum());
+        assertEquals((Integer) 20, betGroup.getScore());
+        verify(betGroupRepositoryMock, times(1)).saveAndFlush(betGroup);
+        verify(betGroupRepositoryMock, times(1)).addMember(1L, -1, -10);
+    }
+
+    @Test
+    public void onUserScoresChanged_ok() {
+        List<BetGroupMembershipView> memberships = new ArrayList<>();
+        memberships.add(membership(1L, 1L));
+        memberships.add(membership(2L, 1L));
+        memberships.add(membership(2L, 2L));
+        List<UserScoreChange> changes = new ArrayList<>();
+        changes.add(new UserScoreChange(1L, 10, 1));
+        changes.add(new UserScoreChange(2L, 3, 0));
+        changes.add(new UserScoreChange(3L, 0, 0));
+        when(betGroupRepositoryMock.getMemberships(any())).thenReturn(memberships);
+
+        betGroupService.onUserScoresChanged(new UserScoresChangedEvent(1L, changes, LocalDateTime.now()));
+
+        verify(betGroupRepositoryMock, times(1)).getMemberships(Arrays.asList(1L, 2L));
+        verify(betGroupRepositoryMock, times(1)).addToScoreSum(13, Collections.singletonList(1L));
+        verify(betGroupRepositoryMock, times(1)).addToScoreSum(3, Collections.singletonList(2L));
+        verify(betGroupRepositoryMock, never()).findAllById(any());
+        verify(betGroupRepositoryMock, never()).saveAll(any());
+        verify(betGroupRepositoryMock, never()).findAll();
+    }
+
+    private BetGroupMembershipView membership(Long userId, Long betGroupId) {
+        return new BetGroupMembershipView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getBetGroupId() {
+                return betGroupId;
+            }
+        };
     }
 
     @Test
@@ -266,8 +559,9 @@ public class BetGroupServiceTest {
                 .build();
         when(betGroupRepositoryMock.findBetGroupByNameEquals("FHNW")).thenReturn(Optional.empty());
         when(betGroupRepositoryMock.save(any())).thenReturn(betGroup);
+        when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
 
-        BetGroupDTO result = betGroupService.createBetGroup(restBetGroupDTO, user);
+        BetGroupDTO result = betGroupService.createBetGroup(restBetGroupDTO, UserPrincipal.of(user));
         assertEquals(betGroup.getId(), result.getId());
         assertEquals(betGroup.getName(), result.getName());
         assertEquals(betGroup.getScore(), result.getScore());
@@ -297,7 +591,7 @@ public class BetGroupServiceTest {
                 .build();
         when(betGroupRepositoryMock.findBetGroupByNameEquals("FHNW")).thenReturn(Optional.ofNullable(betGroup));
 
-        betGroupService.createBetGroup(restBetGroupDTO, user);
+        betGroupService.createBetGroup(restBetGroupDTO, UserPrincipal.of(user));
 
         verify(betGroupRepositoryMock, times(1)).findBetGroupByNameEquals("FHNW");
         verify(betGroupRepositoryMock, times(0)).save(any());
@@ -7,6 +7,7 @@ import ch.fhnw.wodss.tippspiel.domain.TournamentTeam;
 import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.BetDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestBetDTO;
+import ch.fhnw.wodss.tippspiel.event.BetChangedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceAlreadyExistsException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotAllowedException;
@@ -14,6 +15,7 @@ import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
 import ch.fhnw.wodss.tippspiel.persistance.BetRepository;
 import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -21,7 +23,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.event.EventListener;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDateTime;
@@ -50,9 +54,23 @@ public class BetServiceTest {
     @MockBean
     private UserRepository userRepositoryMock;
 
+    @Autowired
+    BetChangedEventRecorder betChangedEventRecorder;
+
+    @TestConfiguration
+    static class BetChangedEventRecorder {
+        final List<BetChangedEvent> events = new ArrayList<>();
+
+        @EventListener
+        public void record(BetChangedEvent event) {
+            events.add(event);
+        }
+    }
+
     @Before
     public void setup() {
         Mockito.reset(betRepositoryMock, gameRepositoryMock, userRepositoryMock);
+        betChangedEventRecorder.events.clear();
     }
 
     @Test
@@ -88,7 +106,7 @@ public class BetServiceTest {
                 .withGame(game)
                 .build();
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
-        BetDTO result = betService.getBetById(1L, user);
+        BetDTO result = betService.getBetById(1L, UserPrincipal.of(user));
         Assert.assertEquals((long)bet.getId(), result.getId());
         Assert.assertEquals(game.getAwayTeamGoals(), result.getActualAwayTeamGoals());
         Assert.assertEquals((long)game.getAwayTeam().getId(), result.getAwayTeamId());
@@ -123,7 +141,7 @@ public class BetServiceTest {
                 .withUser(user)
                 .build();
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
-        betService.getBetById(1L, intercepter);
+        betService.getBetById(1L, UserPrincipal.of(intercepter));
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
     }
 
@@ -134,7 +152,7 @@ public class BetServiceTest {
                 .withName("Yanick")
                 .build();
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.empty());
-        betService.getBetById(1L, user);
+        betService.getBetById(1L, UserPrincipal.of(user));
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
     }
 
@@ -180,12 +198,14 @@ public class BetServiceTest {
         when(betRepositoryMock.save(any())).thenReturn(bet);
         when(userRepositoryMock.save(user)).thenReturn(user);
         when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
-        BetDTO result = betService.addBet(restBet, user);
+        BetDTO result = betService.addBet(restBet, UserPrincipal.of(user));
         Assert.assertEquals((long)bet.getId(), result.getId());
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(1)).save(any(Bet.class));
         Mockito.verify(userRepositoryMock, times(1)).save(user);
+        Assert.assertEquals(1, betChangedEventRecorder.events.size());
+        Assert.assertEquals(new BetChangedEvent(1L, null, null, 0, 1), betChangedEventRecorder.events.get(0));
     }
 
     @Test(expected = ResourceNotFoundException.class)
@@ -215,7 +235,7 @@ public class BetServiceTest {
         when(gameRepositoryMock.findById(1L)).thenReturn(Optional.empty());
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(false);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
-        betService.addBet(restBet, user);
+        betService.addBet(restBet, UserPrincipal.of(user));
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(0)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(0)).save(bet);
@@ -248,7 +268,7 @@ public class BetServiceTest {
         when(gameRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(game));
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
-        betService.addBet(restBet, user);
+        betService.addBet(restBet, UserPrincipal.of(user));
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(0)).save(bet);
@@ -281,7 +301,7 @@ public class BetServiceTest {
         when(gameRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(game));
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(false);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
-        betService.addBet(restBet, user);
+        betService.addBet(restBet, UserPrincipal.of(user));
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(0)).save(bet);
@@ -328,7 +348,7 @@ public class BetServiceTest {
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
-        BetDTO result = betService.updateBet(1L, restBet, user);
+        BetDTO result = betService.updateBet(1L, restBet, UserPrincipal.of(user));
         Assert.assertEquals((long)bet.getId(), result.getId());
         Assert.assertEquals(game.getAwayTeamGoals(), result.getActualAwayTeamGoals());
         Assert.assertEquals((long)game.getAwayTeam().getId(), result.getAwayTeamId());
@@ -346,6 +366,8 @@ public class BetServiceTest {
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(1)).save(bet);
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
+        Assert.assertEquals(1, betChangedEventRecorder.events.size());
+        Assert.assertEquals(new BetChangedEvent(1L, 0, 1, 0, 1), betChangedEventRecorder.events.get(0));
     }
 
     @Test(expected = ResourceNotFoundException.class)
@@ -376,7 +398,7 @@ public class BetServiceTest {
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
         when(betRepositoryMock.existsById(1L)).thenReturn(false);
-        betService.updateBet(1L, restBet, user);
+        betService.updateBet(1L, restBet, UserPrincipal.of(user));
         Mockito.verify(gameRepositoryMock, times(0)).findById(1L);
         Mockito.verify(betRepositoryMock, times(0)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(0)).save(bet);
@@ -411,7 +433,7 @@ public class BetServiceTest {
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
         when(betRepositoryMock.existsById(1L)).thenReturn(true);
-        betService.updateBet(1L, restBet, user);
+        betService.updateBet(1L, restBet, UserPrincipal.of(user));
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(0)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(0)).save(bet);
@@ -459,7 +481,7 @@ public class BetServiceTest {
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(false);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
-        betService.updateBet(1L, restBet, user);
+        betService.updateBet(1L, restBet, UserPrincipal.of(user));
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(0)).save(bet);
@@ -507,7 +529,7 @@ public class BetServiceTest {
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
         when(betRepositoryMock.save(bet)).thenReturn(bet);
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
-        betService.updateBet(1L, restBet, user);
+        betService.updateBet(1L, restBet, UserPrincipal.of(user));
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(betRepositoryMock, times(0)).save(bet);
@@ -536,11 +558,13 @@ public class BetServiceTest {
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
         when(gameRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(game));
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
-        betService.deleteBet(1L, user);
+        betService.deleteBet(1L, UserPrincipal.of(user));
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).deleteById(1L);
+        Assert.assertEquals(1, betChangedEventRecorder.events.size());
+        Assert.assertEquals(new BetChangedEvent(1L, 0, 1, null, null), betChangedEventRecorder.events.get(0));
     }
 
     @Test(expected = ResourceNotFoundException.class)
@@ -563,7 +587,7 @@ public class BetServiceTest {
                 .withGame(game)
                 .build();
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.empty());
-        betService.deleteBet(1L, user);
+        betService.deleteBet(1L, UserPrincipal.of(user));
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(0)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(gameRepositoryMock, times(0)).findById(1L);
@@ -592,7 +616,7 @@ public class BetServiceTest {
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
         when(gameRepositoryMock.findById(1L)).thenReturn(Optional.empty());
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
-        betService.deleteBet(1L, user);
+        betService.deleteBet(1L, UserPrincipal.of(user));
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(0)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
@@ -621,7 +645,7 @@ public class BetServiceTest {
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
         when(gameRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(game));
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(false);
-        betService.deleteBet(1L, user);
+        betService.deleteBet(1L, UserPrincipal.of(user));
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
@@ -650,7 +674,7 @@ public class BetServiceTest {
         when(betRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(bet));
         when(gameRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(game));
         when(betRepositoryMock.existsBetByUser_IdAndGame_Id(1L, 1L)).thenReturn(true);
-        betService.deleteBet(1L, user);
+        betService.deleteBet(1L, UserPrincipal.of(user));
         Mockito.verify(betRepositoryMock, times(1)).findById(1L);
         Mockito.verify(betRepositoryMock, times(1)).existsBetByUser_IdAndGame_Id(1L, 1L);
         Mockito.verify(gameRepositoryMock, times(1)).findById(1L);
@@ -701,12 +725,12 @@ public class BetServiceTest {
         bets.add(bet);
         bets.add(bet2);
 
-        when(betRepositoryMock.getBetsForUser(user)).thenReturn(bets);
-        List<BetDTO> result = betService.getBetsForUser(user);
+        when(betRepositoryMock.getBetsForUser(user.getId())).thenReturn(bets);
+        List<BetDTO> result = betService.getBetsForUser(UserPrincipal.of(user));
         Assert.assertEquals(bets.size(), result.size());
         Assert.assertEquals((long)bet.getId(), result.get(0).getId());
         Assert.assertEquals((long)bet2.getId(), result.get(1).getId());
-        Mockito.verify(betRepositoryMock, times(1)).getBetsForUser(user);
+        Mockito.verify(betRepositoryMock, times(1)).getBetsForUser(user.getId());
     }
 
 }
@@ -0,0 +1,283 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.builder.*;
+import ch.fhnw.wodss.tippspiel.domain.*;
+import ch.fhnw.wodss.tippspiel.dto.ScrapedGameDTO;
+import ch.fhnw.wodss.tippspiel.event.GameChange;
+import ch.fhnw.wodss.tippspiel.event.GameResultEvent;
+import ch.fhnw.wodss.tippspiel.event.GameScheduleChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.GamesChangedEvent;
+import ch.fhnw.wodss.tippspiel.persistance.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(GameImportService.class)
+public class GameImportServiceTest {
+
+    private static final LocalDateTime KICKOFF = LocalDateTime.of(2018, 6, 14, 17, 0);
+
+    @Autowired
+    GameImportService gameImportService;
+
+    @MockBean
+    GameRepository gameRepositoryMock;
+
+    @MockBean
+    LocationRepository locationRepositoryMock;
+
+    @MockBean
+    PhaseRepository phaseRepositoryMock;
+
+    @MockBean
+    TournamentTeamRepository tournamentTeamRepositoryMock;
+
+    @MockBean
+    TournamentGroupRepository tournamentGroupRepositoryMock;
+
+    @Autowired
+    GameEventRecorder gameEventRecorder;
+
+    @TestConfiguration
+    static class GameEventRecorder {
+        final List<GameScheduleChangedEvent> scheduleEvents = new ArrayList<>();
+        final List<GameResultEvent> resultEvents = new ArrayList<>();
+        final List<GamesChangedEvent> changeSets = new ArrayList<>();
+
+        @EventListener
+        public void record(GameScheduleChangedEvent event) {
+            scheduleEvents.add(event);
+        }
+
+        @EventListener
+        public void record(GameResultEvent event) {
+            resultEvents.add(event);
+        }
+
+        @EventListener
+        public void record(GamesChangedEvent event) {
+            changeSets.add(event);
+        }
+    }
+
+    private TournamentGroup group;
+    private TournamentTeam russia;
+    private TournamentTeam saudiArabia;
+    private Location moscow;
+    private Phase groupPhase;
+
+    @Before
+    public void setup() {
+        Mockito.reset(gameRepositoryMock, locationRepositoryMock, phaseRepositoryMock, tournamentTeamRepositoryMock, tournamentGroupRepositoryMock);
+        gameEventRecorder.scheduleEvents.clear();
+        gameEventRecorder.resultEvents.clear();
+        gameEventRecorder.changeSets.clear();
+        group = new TournamentGroupBuilder().withId(1L).withName("A").build();
+        russia = new TournamentTeamBuilder().withId(1L).withName("rus").withGroup(group).build();
+        saudiArabia = new TournamentTeamBuilder().withId(2L).withName("sau").withGroup(group).build();
+        moscow = new LocationBuilder().withId(1L).withName("mos").build();
+        groupPhase = new PhaseBuilder().withId(1L).withName("group").build();
+        when(tournamentGroupRepositoryMock.findAll()).thenReturn(Collections.singletonList(group));
+        when(tournamentTeamRepositoryMock.findAll()).thenReturn(Arrays.asList(russia, saudiArabia));
+        when(locationRepositoryMock.findAll()).thenReturn(Collections.singletonList(moscow));
+        when(phaseRepositoryMock.findAll()).thenReturn(Collections.singletonList(groupPhase));
+    }
+
+    private Game existingGame(LocalDateTime kickoff) {
+        Game game = new GameBuilder().withId(1L).withHomeTeam(russia).withAwayTeam(saudiArabia).withDateTime(kickoff).build();
+        game.setLocation(moscow);
+        game.setPhase(groupPhase);
+        return game;
+    }
+
+    @Test
+    public void importGames_createsGameAndReferences() {
+        when(tournamentGroupRepositoryMock.findAll()).thenReturn(new ArrayList<>());
+        when(tournamentTeamRepositoryMock.findAll()).thenReturn(new ArrayList<>());
+        when(locationRepositoryMock.findAll()).thenReturn(new ArrayList<>());
+        when(phaseRepositoryMock.findAll()).thenReturn(new ArrayList<>());
+        when(gameRepositoryMock.findAll()).thenReturn(new ArrayList<>());
+        when(tournamentGroupRepositoryMock.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(tournamentTeamRepositoryMock.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(locationRepositoryMock.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(phaseRepositoryMock.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(gameRepositoryMock.save(any())).thenAnswer(invocation -> {
+            Game game = invocation.getArgument(0);
+            game.setId(7L);
+            return game;
+        });
+        List<ScrapedGameDTO> scraped = new ArrayList<>();
+        scraped.add(new ScrapedGameDTO(KICKOFF, "rus", "sau", "mos", "group", "A", 5, 0));
+        scraped.add(new ScrapedGameDTO(KICKOFF.plusDays(1), "sau", "rus", "mos", "group", "A", null, null));
+
+        List<GameChange> changes = gameImportService.importGames(scraped);
+
+        Assert.assertEquals(3, changes.size());
+        Assert.assertEquals(GameChange.Type.CREATED, changes.get(0).getType());
+        Assert.assertEquals(GameChange.Type.RESULT_SET, changes.get(1).getType());
+        Assert.assertEquals(GameChange.Type.CREATED, changes.get(2).getType());
+        Assert.assertEquals(1, gameEventRecorder.changeSets.size());
+
+        verify(tournamentGroupRepositoryMock, times(1)).save(any());
+        verify(tournamentTeamRepositoryMock, times(2)).save(any());
+        verify(locationRepositoryMock, times(1)).save(any());
+        verify(phaseRepositoryMock, times(1)).save(any());
+        verify(gameRepositoryMock, times(2)).save(any());
+        Assert.assertEquals(2, gameEventRecorder.scheduleEvents.size());
+        Assert.assertEquals(1, gameEventRecorder.resultEvents.size());
+        Assert.assertEquals((Integer) 5, gameEventRecorder.resultEvents.get(0).getHomeTeamGoals());
+    }
+
+    @Test
+    public void importGames_unchanged() {
+        Game game = existingGame(KICKOFF);
+        game.setHomeTeamGoals(5);
+        game.setAwayTeamGoals(0);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF, "rus", "sau", "mos", "group", "A", 5, 0)));
+
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertTrue(gameEventRecorder.changeSets.isEmpty());
+        verify(gameRepositoryMock, never()).save(any());
+        verify(tournamentTeamRepositoryMock, never()).save(any());
+        verify(locationRepositoryMock, never()).save(any());
+        Assert.assertTrue(gameEventRecorder.scheduleEvents.isEmpty());
+        Assert.assertTrue(gameEventRecorder.resultEvents.isEmpty());
+    }
+
+    @Test
+    public void importGames_setsResult() {
+        Game game = existingGame(KICKOFF);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF, "rus", "sau", "mos", "group", "A", 5, 0)));
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(GameChange.Type.RESULT_SET, changes.get(0).getType());
+        Assert.assertEquals((Integer) 5, game.getHomeTeamGoals());
+        Assert.assertEquals((Integer) 0, game.getAwayTeamGoals());
+        Assert.assertEquals(1, gameEventRecorder.resultEvents.size());
+        Assert.assertTrue(gameEventRecorder.scheduleEvents.isEmpty());
+    }
+
+    @Test
+    public void importGames_correctsResult() {
+        Game game = existingGame(KICKOFF);
+        game.setHomeTeamGoals(5);
+        game.setAwayTeamGoals(0);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF, "rus", "sau", "mos", "group", "A", 4, 0)));
+
+        Assert.assertEquals(GameChange.Type.RESULT_CORRECTED, changes.get(0).getType());
+        Assert.assertEquals((Integer) 4, game.getHomeTeamGoals());
+        Assert.assertEquals(1, gameEventRecorder.resultEvents.size());
+        Assert.assertEquals((Integer) 4, gameEventRecorder.resultEvents.get(0).getHomeTeamGoals());
+    }
+
+    @Test
+    public void importGames_keepsRemovedResult() {
+        Game game = existingGame(KICKOFF);
+        game.setHomeTeamGoals(5);
+        game.setAwayTeamGoals(0);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF, "rus", "sau", "mos", "group", "A", null, null)));
+
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertEquals((Integer) 5, game.getHomeTeamGoals());
+    }
+
+    @Test
+    public void importGames_kickoffMoved() {
+        Game game = existingGame(KICKOFF);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF.plusMinutes(5), "rus", "sau", "mos", "group", "A", null, null)));
+
+        Assert.assertEquals(GameChange.Type.KICKOFF_MOVED, changes.get(0).getType());
+        Assert.assertEquals(KICKOFF.plusMinutes(5), game.getDateTime());
+        verify(gameRepositoryMock, never()).save(any());
+        Assert.assertEquals(1, gameEventRecorder.scheduleEvents.size());
+        Assert.assertEquals(KICKOFF.plusMinutes(5), gameEventRecorder.scheduleEvents.get(0).getKickoff());
+    }
+
+    @Test
+    public void importGames_rescheduledGameMatchedBySlot() {
+        Game game = existingGame(KICKOFF);
+        game.setSlot(1);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF.plusDays(2), "rus", "sau", "mos", "group", "A", null, null, 1)));
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(GameChange.Type.KICKOFF_MOVED, changes.get(0).getType());
+        Assert.assertEquals(KICKOFF.plusDays(2), game.getDateTime());
+        verify(gameRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void importGames_teamsOfKnockoutGameSet() {
+        TournamentTeam tbd = new TournamentTeamBuilder().withId(3L).withName("tbd").withGroup(group).build();
+        when(tournamentTeamRepositoryMock.findAll()).thenReturn(Arrays.asList(russia, saudiArabia, tbd));
+        Game game = existingGame(KICKOFF);
+        game.setHomeTeam(tbd);
+        game.setAwayTeam(tbd);
+        game.setSlot(3);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF, "rus", "sau", "mos", "group", "A", null, null, 3)));
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(GameChange.Type.TEAMS_SET, changes.get(0).getType());
+        Assert.assertEquals(russia, game.getHomeTeam());
+        Assert.assertEquals(saudiArabia, game.getAwayTeam());
+        verify(gameRepositoryMock, never()).save(any());
+        Assert.assertTrue(gameEventRecorder.scheduleEvents.isEmpty());
+    }
+
+    @Test
+    public void importGames_slotAssignedToGameWithoutSlot() {
+        Game game = existingGame(KICKOFF);
+        when(gameRepositoryMock.findAll()).thenReturn(Collections.singletonList(game));
+
+        List<GameChange> changes = gameImportService.importGames(Collections.singletonList(
+                new ScrapedGameDTO(KICKOFF, "rus", "sau", "mos", "group", "A", null, null, 1)));
+
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertEquals((Integer) 1, game.getSlot());
+        verify(gameRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void importGames_empty() {
+        Assert.assertTrue(gameImportService.importGames(new ArrayList<>()).isEmpty());
+        verify(gameRepositoryMock, never()).findAll();
+    }
+}
@@ -3,7 +3,12 @@ package ch.fhnw.wodss.tippspiel.service;
 import ch.fhnw.wodss.tippspiel.builder.*;
 import ch.fhnw.wodss.tippspiel.domain.*;
 import ch.fhnw.wodss.tippspiel.dto.GameDTO;
+import ch.fhnw.wodss.tippspiel.dto.PredictedScoreDTO;
 import ch.fhnw.wodss.tippspiel.dto.RestGameDTO;
+import ch.fhnw.wodss.tippspiel.dto.StatistikDTO;
+import ch.fhnw.wodss.tippspiel.event.GameChange;
+import ch.fhnw.wodss.tippspiel.event.GameResultEvent;
+import ch.fhnw.wodss.tippspiel.event.GamesChangedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
 import ch.fhnw.wodss.tippspiel.persistance.*;
@@ -14,14 +19,22 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -49,9 +62,37 @@ public class GameServiceTest {
     @MockBean
     PhaseRepository phaseRepositoryMock;
 
+    @MockBean
+    GameStatisticsService gameStatisticsServiceMock;
+
+    @Autowired
+    GameResultEventRecorder gameResultEventRecorder;
+
+    @TestConfiguration
+    static class GameResultEventRecorder {
+        final List<GameResultEvent> events = new ArrayList<>();
+
+        @EventListener
+        public void record(GameResultEvent event) {
+            events.add(event);
+        }
+    }
+
+    @TestConfiguration
+    static class CacheConfiguration {
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("games");
+        }
+    }
+
+    @Autowired
+    CacheManager cacheManager;
+
     @Before
     public void setup() {
-        Mockito.reset(gameRepositoryMock, betRepositoryMock, tournamentTeamRepositoryMock, locationRepositoryMock, phaseRepositoryMock);
+        Mockito.reset(gameRepositoryMock, betRepositoryMock, tournamentTeamRepositoryMock, locationRepositoryMock, phaseRepositoryMock, gameStatisticsServiceMock);
+        gameResultEventRecorder.events.clear();
     }
 
     @Test
@@ -403,5 +444,161 @@ public class GameServiceTest {
         verify(gameRepositoryMock, times(0)).deleteById(1L);
     }
 
-}
+    @Test
+    public void setResult_ok() {
+        Game game = new GameBuilder()
+                .withId(1L)
+                .withDateTime(LocalDateTime.of(2018, 06, 14, 18, 00, 00))
+                .build();
+        when(gameRepositoryMock.findById(1L)).thenReturn(Optional.of(game));
+
+        gameService.setResult(1L, 2, 1);
+        assertEquals((Integer) 2, game.getHomeTeamGoals());
+        assertEquals((Integer) 1, game.getAwayTeamGoals());
+
+        verify(gameRepositoryMock, times(1)).save(game);
+        assertEquals(1, gameResultEventRecorder.events.size());
+        assertEquals(new GameResultEvent(1L, 2, 1), gameResultEventRecorder.events.get(0));
+    }
+
+    @Test
+    public void setResult_notPlayed() {
+        Game game = new GameBuilder()
+                .withId(1L)
+                .withDateTime(LocalDateTime.now().plusDays(1))
+                .build();
+        when(gameRepositoryMock.findById(1L)).thenReturn(Optional.of(game));
+
+        try {
+            gameService.setResult(1L, 2, 1);
+            fail("Expected an IllegalActionException");
+        } catch (IllegalActionException e) {
+            // expected
+        }
+
+        assertNull(game.getHomeTeamGoals());
+        assertNull(game.getAwayTeamGoals());
+        verify(gameRepositoryMock, times(0)).save(any(Game.class));
+        assertEquals(0, gameResultEventRecorder.events.size());
+    }
 
+    @Test(expected = ResourceNotFoundException.class)
+    public void setResult_notFound() {
+        when(gameRepositoryMock.findById(1L)).thenReturn(Optional.empty());
+
+        gameService.setResult(1L, 2, 1);
+    }
+
+    @Test
+    public void createGameBetStatistiks_ok() {
+        Game game = new GameBuilder()
+                .withId(1L)
+                .withDateTime(LocalDateTime.of(2018, 06, 14, 18, 00, 00))
+                .build();
+        List<PredictedScoreView> scores = new ArrayList<>();
+        scores.add(predictedScore(2, 1, 3));
+        scores.add(predictedScore(1, 1, 4));
+        scores.add(predictedScore(0, 2, 1));
+        scores.add(predictedScore(3, 0, 2));
+        when(gameRepositoryMock.findById(1L)).thenReturn(Optional.of(game));
+        when(betRepositoryMock.getPredictedScores(1L)).thenReturn(scores);
+
+        StatistikDTO result = gameService.createGameBetStatistiks(1L);
+        assertEquals(true, result.getGameStarted());
+        assertEquals((Integer) 5, result.getHomeWin());
+        assertEquals((Integer) 4, result.getDraw());
+        assertEquals((Integer) 1, result.getHomeLose());
+        assertEquals(1.6, result.getAverageHomeTeamGoals(), 0.0001);
+        assertEquals(0.9, result.getAverageAwayTeamGoals(), 0.0001);
+        assertEquals(3, result.getTopScores().size());
+        assertEquals(new PredictedScoreDTO(1, 1, 4), result.getTopScores().get(0));
+        assertEquals(new PredictedScoreDTO(2, 1, 3), result.getTopScores().get(1));
+        assertEquals(new PredictedScoreDTO(3, 0, 2), result.getTopScores().get(2));
+
+        verify(betRepositoryMock, times(1)).getPredictedScores(1L);
+    }
+
+    @Test
+    public void createGameBetStatistiks_noBets() {
+        Game game = new GameBuilder()
+                .withId(1L)
+                .withDateTime(LocalDateTime.of(2018, 06, 14, 18, 00, 00))
+                .build();
+        when(gameRepositoryMock.findById(1L)).thenReturn(Optional.of(game));
+        when(betRepositoryMock.getPredictedScores(1L)).thenReturn(new ArrayList<>());
+
+        StatistikDTO result = gameService.createGameBetStatistiks(1L);
+        assertEquals((Integer) 0, result.getHomeWin());
+        assertEquals((Integer) 0, result.getDraw());
+        assertEquals((Integer) 0, result.getHomeLose());
+        assertEquals(0, result.getAverageHomeTeamGoals(), 0.0001);
+        assertEquals(0, result.getTopScores().size());
+    }
+
+    @Test
+    public void createGameBetStatistiks_notStarted() {
+        Game game = new GameBuilder()
+                .withId(1L)
+                .withDateTime(LocalDateTime.now().plusDays(1))
+                .build();
+        when(gameRepositoryMock.findById(1L)).thenReturn(Optional.of(game));
+
+        StatistikDTO result = gameService.createGameBetStatistiks(1L);
+        assertEquals(false, result.getGameStarted());
+
+        verify(betRepositoryMock, times(0)).getPredictedScores(any());
+    }
+
+    @Test
+    public void createGameBetStatistiks_fromCounters() {
+        StatistikDTO statistikDTO = new StatistikDTO();
+        statistikDTO.setGameStarted(true);
+        statistikDTO.setHomeWin(7);
+        when(gameStatisticsServiceMock.getStatistics(1L)).thenReturn(Optional.of(statistikDTO));
+
+        StatistikDTO result = gameService.createGameBetStatistiks(1L);
+        assertEquals((Integer) 7, result.getHomeWin());
+
+        verify(gameRepositoryMock, times(0)).findById(any());
+        verify(betRepositoryMock, times(0)).getPredictedScores(any());
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void createGameBetStatistiks_notFound() {
+        when(gameRepositoryMock.findById(1L)).thenReturn(Optional.empty());
+
+        gameService.createGameBetStatistiks(1L);
+    }
+
+    @Test
+    public void onGamesChanged_evictsGames() {
+        cacheManager.getCache("games").put(1L, "game 1");
+        cacheManager.getCache("games").put(2L, "game 2");
+
+        gameService.onGamesChanged(new GamesChangedEvent(Collections.singletonList(
+                new GameChange(1L, GameChange.Type.RESULT_SET, LocalDateTime.now(), 2, 1))));
+
+        assertNull(cacheManager.getCache("games").get(1L));
+        assertEquals("game 2", cacheManager.getCache("games").get(2L).get());
+    }
+
+    private PredictedScoreView predictedScore(int homeTeamGoals, int awayTeamGoals, long count) {
+        return new PredictedScoreView() {
+            @Override
+            public Integer getHomeTeamGoals() {
+                return homeTeamGoals;
+            }
+
+            @Override
+            public Integer getAwayTeamGoals() {
+                return awayTeamGoals;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+
+}
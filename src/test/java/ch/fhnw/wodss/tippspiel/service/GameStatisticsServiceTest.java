@@ -0,0 +1,150 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.dto.PredictedScoreDTO;
+import ch.fhnw.wodss.tippspiel.dto.StatistikDTO;
+import ch.fhnw.wodss.tippspiel.event.BetChangedEvent;
+import ch.fhnw.wodss.tippspiel.event.GameScheduleChangedEvent;
+import ch.fhnw.wodss.tippspiel.persistance.BetRepository;
+import ch.fhnw.wodss.tippspiel.persistance.GameKickoffView;
+import ch.fhnw.wodss.tippspiel.persistance.GamePredictedScoreView;
+import ch.fhnw.wodss.tippspiel.persistance.GameRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(GameStatisticsService.class)
+public class GameStatisticsServiceTest {
+
+    @Autowired
+    GameStatisticsService gameStatisticsService;
+
+    @MockBean
+    GameRepository gameRepositoryMock;
+
+    @MockBean
+    BetRepository betRepositoryMock;
+
+    @Before
+    public void setup() {
+        Mockito.reset(gameRepositoryMock, betRepositoryMock);
+        List<GameKickoffView> kickoffs = new ArrayList<>();
+        kickoffs.add(kickoff(1L, LocalDateTime.of(2018, 6, 14, 18, 0)));
+        kickoffs.add(kickoff(2L, LocalDateTime.now().plusDays(1)));
+        List<GamePredictedScoreView> scores = new ArrayList<>();
+        scores.add(predictedScore(1L, 2, 1, 3));
+        scores.add(predictedScore(1L, 1, 1, 4));
+        scores.add(predictedScore(1L, 0, 2, 1));
+        scores.add(predictedScore(1L, 3, 0, 2));
+        scores.add(predictedScore(2L, 1, 0, 5));
+        when(gameRepositoryMock.getKickoffs()).thenReturn(kickoffs);
+        when(betRepositoryMock.getPredictedScoresOfAllGames()).thenReturn(scores);
+        gameStatisticsService.reload();
+    }
+
+    @Test
+    public void getStatistics_ok() {
+        StatistikDTO result = gameStatisticsService.getStatistics(1L).get();
+        Assert.assertEquals(true, result.getGameStarted());
+        Assert.assertEquals((Integer) 5, result.getHomeWin());
+        Assert.assertEquals((Integer) 4, result.getDraw());
+        Assert.assertEquals((Integer) 1, result.getHomeLose());
+        Assert.assertEquals(1.6, result.getAverageHomeTeamGoals(), 0.0001);
+        Assert.assertEquals(0.9, result.getAverageAwayTeamGoals(), 0.0001);
+        Assert.assertEquals(3, result.getTopScores().size());
+        Assert.assertEquals(new PredictedScoreDTO(1, 1, 4), result.getTopScores().get(0));
+        Assert.assertEquals(new PredictedScoreDTO(2, 1, 3), result.getTopScores().get(1));
+        Assert.assertEquals(new PredictedScoreDTO(3, 0, 2), result.getTopScores().get(2));
+        verify(gameRepositoryMock, times(1)).getKickoffs();
+        verify(betRepositoryMock, times(1)).getPredictedScoresOfAllGames();
+    }
+
+    @Test
+    public void getStatistics_notStarted() {
+        StatistikDTO result = gameStatisticsService.getStatistics(2L).get();
+        Assert.assertEquals(false, result.getGameStarted());
+        Assert.assertNull(result.getHomeWin());
+    }
+
+    @Test
+    public void getStatistics_unknownGame() {
+        Assert.assertEquals(Optional.empty(), gameStatisticsService.getStatistics(3L));
+    }
+
+    @Test
+    public void onBetChanged_ok() {
+        gameStatisticsService.onBetChanged(new BetChangedEvent(1L, 1, 1, 0, 2));
+        gameStatisticsService.onBetChanged(new BetChangedEvent(1L, null, null, 0, 2));
+        gameStatisticsService.onBetChanged(new BetChangedEvent(1L, 3, 0, null, null));
+
+        StatistikDTO result = gameStatisticsService.getStatistics(1L).get();
+        Assert.assertEquals((Integer) 4, result.getHomeWin());
+        Assert.assertEquals((Integer) 3, result.getDraw());
+        Assert.assertEquals((Integer) 3, result.getHomeLose());
+        Assert.assertEquals(new PredictedScoreDTO(0, 2, 3), result.getTopScores().get(0));
+        Assert.assertEquals(new PredictedScoreDTO(1, 1, 3), result.getTopScores().get(1));
+    }
+
+    @Test
+    public void onGameScheduleChanged_ok() {
+        gameStatisticsService.onGameScheduleChanged(new GameScheduleChangedEvent(3L, LocalDateTime.of(2018, 6, 15, 20, 0)));
+        gameStatisticsService.onBetChanged(new BetChangedEvent(3L, null, null, 2, 2));
+        gameStatisticsService.onGameScheduleChanged(new GameScheduleChangedEvent(1L, null));
+
+        StatistikDTO result = gameStatisticsService.getStatistics(3L).get();
+        Assert.assertEquals((Integer) 1, result.getDraw());
+        Assert.assertEquals(2.0, result.getAverageHomeTeamGoals(), 0.0001);
+        Assert.assertFalse(gameStatisticsService.getStatistics(1L).isPresent());
+    }
+
+    private GameKickoffView kickoff(Long id, LocalDateTime dateTime) {
+        return new GameKickoffView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getDateTime() {
+                return dateTime;
+            }
+        };
+    }
+
+    private GamePredictedScoreView predictedScore(Long gameId, int homeTeamGoals, int awayTeamGoals, long count) {
+        return new GamePredictedScoreView() {
+            @Override
+            public Long getGameId() {
+                return gameId;
+            }
+
+            @Override
+            public Integer getHomeTeamGoals() {
+                return homeTeamGoals;
+            }
+
+            @Override
+            public Integer getAwayTeamGoals() {
+                return awayTeamGoals;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+}
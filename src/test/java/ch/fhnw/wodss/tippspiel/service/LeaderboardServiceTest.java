@@ -0,0 +1,171 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.builder.UserRankingDTOBuilder;
+import ch.fhnw.wodss.tippspiel.dto.LeaderboardEntryDTO;
+import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
+import ch.fhnw.wodss.tippspiel.event.UserDeletedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserSavedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserScoreChange;
+import ch.fhnw.wodss.tippspiel.event.UserScoresChangedEvent;
+import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
+import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
+import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(LeaderboardService.class)
+public class LeaderboardServiceTest {
+
+    @Autowired
+    LeaderboardService leaderboardService;
+
+    @MockBean
+    UserRepository userRepositoryMock;
+
+    @Before
+    public void setup() {
+        Mockito.reset(userRepositoryMock);
+        List<UserRankingDTO> totals = new ArrayList<>();
+        totals.add(new UserRankingDTOBuilder().withId(1L).withName("Yanick").withScore(10).withExactHits(1).build());
+        totals.add(new UserRankingDTOBuilder().withId(2L).withName("Tom").withScore(25).withExactHits(2).build());
+        totals.add(new UserRankingDTOBuilder().withId(3L).withName("Fred").withScore(10).withExactHits(1).build());
+        totals.add(new UserRankingDTOBuilder().withId(4L).withName("Anna").withScore(10).withExactHits(0).build());
+        totals.add(new UserRankingDTOBuilder().withId(5L).withName("Lea").withScore(0).withExactHits(0).build());
+        when(userRepositoryMock.getRanking()).thenReturn(totals);
+        leaderboardService.reload();
+    }
+
+    @Test
+    public void getPage_ok() {
+        List<LeaderboardEntryDTO> result = leaderboardService.getPage(0, 10);
+        Assert.assertEquals(5, result.size());
+        Assert.assertEquals((Long) 2L, result.get(0).getId());
+        Assert.assertEquals((Integer) 1, result.get(0).getRank());
+        Assert.assertEquals((Long) 1L, result.get(1).getId());
+        Assert.assertEquals((Integer) 2, result.get(1).getRank());
+        Assert.assertEquals((Long) 3L, result.get(2).getId());
+        Assert.assertEquals((Integer) 2, result.get(2).getRank());
+        Assert.assertEquals((Long) 4L, result.get(3).getId());
+        Assert.assertEquals((Integer) 4, result.get(3).getRank());
+        Assert.assertEquals((Long) 5L, result.get(4).getId());
+        Assert.assertEquals((Integer) 5, result.get(4).getRank());
+        verify(userRepositoryMock, times(1)).getRanking();
+    }
+
+    @Test
+    public void getPage_secondPage() {
+        List<LeaderboardEntryDTO> result = leaderboardService.getPage(1, 2);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals((Long) 3L, result.get(0).getId());
+        Assert.assertEquals((Integer) 2, result.get(0).getRank());
+        Assert.assertEquals((Long) 4L, result.get(1).getId());
+        Assert.assertTrue(leaderboardService.getPage(3, 2).isEmpty());
+    }
+
+    @Test(expected = IllegalActionException.class)
+    public void getPage_invalidSize() {
+        leaderboardService.getPage(0, LeaderboardService.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void getTop_ok() {
+        List<LeaderboardEntryDTO> result = leaderboardService.getTop(1);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("Tom", result.get(0).getName());
+        Assert.assertEquals((Integer) 25, result.get(0).getScore());
+        Assert.assertEquals((Integer) 2, result.get(0).getExactHits());
+    }
+
+    @Test
+    public void getRank_ok() {
+        LeaderboardEntryDTO result = leaderboardService.getRank(3L);
+        Assert.assertEquals((Integer) 2, result.getRank());
+        Assert.assertEquals("Fred", result.getName());
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void getRank_notFound() {
+        leaderboardService.getRank(42L);
+    }
+
+    @Test
+    public void getNeighbours_ok() {
+        List<LeaderboardEntryDTO> result = leaderboardService.getNeighbours(2L, 1);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals((Long) 2L, result.get(0).getId());
+        Assert.assertEquals((Long) 1L, result.get(1).getId());
+
+        result = leaderboardService.getNeighbours(4L, 1);
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals((Long) 3L, result.get(0).getId());
+        Assert.assertEquals((Long) 4L, result.get(1).getId());
+        Assert.assertEquals((Long) 5L, result.get(2).getId());
+    }
+
+    @Test
+    public void onUserScoresChanged_ok() {
+        List<UserScoreChange> changes = new ArrayList<>();
+        changes.add(new UserScoreChange(5L, 30, 3));
+        changes.add(new UserScoreChange(1L, -10, -1));
+        changes.add(new UserScoreChange(42L, 10, 1));
+        leaderboardService.onUserScoresChanged(new UserScoresChangedEvent(1L, changes, LocalDateTime.now()));
+
+        LeaderboardEntryDTO lea = leaderboardService.getRank(5L);
+        Assert.assertEquals((Integer) 1, lea.getRank());
+        Assert.assertEquals((Integer) 30, lea.getScore());
+        Assert.assertEquals((Integer) 3, lea.getExactHits());
+        LeaderboardEntryDTO yanick = leaderboardService.getRank(1L);
+        Assert.assertEquals((Integer) 5, yanick.getRank());
+        Assert.assertEquals((Integer) 0, yanick.getScore());
+        Assert.assertEquals(5, leaderboardService.getPage(0, 10).size());
+    }
+
+    @Test
+    public void onUserSaved_ok() {
+        leaderboardService.onUserSaved(new UserSavedEvent(6L, "Max"));
+        leaderboardService.onUserSaved(new UserSavedEvent(2L, "Thomas"));
+
+        LeaderboardEntryDTO max = leaderboardService.getRank(6L);
+        Assert.assertEquals((Integer) 5, max.getRank());
+        Assert.assertEquals((Integer) 0, max.getScore());
+        LeaderboardEntryDTO thomas = leaderboardService.getRank(2L);
+        Assert.assertEquals("Thomas", thomas.getName());
+        Assert.assertEquals((Integer) 25, thomas.getScore());
+        Assert.assertEquals(6, leaderboardService.getPage(0, 10).size());
+    }
+
+    @Test
+    public void onUserDeleted_ok() {
+        leaderboardService.onUserDeleted(new UserDeletedEvent(2L));
+
+        Assert.assertEquals(4, leaderboardService.getPage(0, 10).size());
+        Assert.assertEquals((Integer) 1, leaderboardService.getRank(1L).getRank());
+    }
+
+    @Test
+    public void getAllAscending_ok() {
+        List<UserRankingDTO> result = leaderboardService.getAllAscending();
+        Assert.assertEquals(5, result.size());
+        Assert.assertEquals((Long) 5L, result.get(0).getId());
+        Assert.assertEquals((Long) 2L, result.get(4).getId());
+        for (int i = 1; i < result.size(); i++) {
+            Assert.assertTrue(result.get(i - 1).getScore() <= result.get(i).getScore());
+        }
+        Assert.assertEquals(Collections.emptyList(), leaderboardService.getPage(5, 10));
+    }
+}
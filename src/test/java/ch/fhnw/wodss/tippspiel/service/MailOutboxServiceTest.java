@@ -0,0 +1,136 @@
+package ch.fhnw.wodss.tippspiel.service;
+
+import ch.fhnw.wodss.tippspiel.domain.MailRun;
+import ch.fhnw.wodss.tippspiel.domain.OutboxMail;
+import ch.fhnw.wodss.tippspiel.event.MailEnqueuedEvent;
+import ch.fhnw.wodss.tippspiel.event.MailRunClosedEvent;
+import ch.fhnw.wodss.tippspiel.persistance.MailRunRepository;
+import ch.fhnw.wodss.tippspiel.persistance.OutboxMailRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(MailOutboxService.class)
+public class MailOutboxServiceTest {
+
+    @Autowired
+    MailOutboxService mailOutboxService;
+
+    @MockBean
+    private OutboxMailRepository outboxMailRepositoryMock;
+
+    @MockBean
+    private MailRunRepository mailRunRepositoryMock;
+
+    @Autowired
+    MailEnqueuedEventRecorder recorder;
+
+    @TestConfiguration
+    static class MailEnqueuedEventRecorder {
+        final List<MailEnqueuedEvent> events = new ArrayList<>();
+        final List<MailRunClosedEvent> closedRuns = new ArrayList<>();
+
+        @EventListener
+        public void record(MailEnqueuedEvent event) {
+            events.add(event);
+        }
+
+        @EventListener
+        public void record(MailRunClosedEvent event) {
+            closedRuns.add(event);
+        }
+    }
+
+    @Before
+    public void setup() {
+        Mockito.reset(outboxMailRepositoryMock, mailRunRepositoryMock);
+        recorder.events.clear();
+        recorder.closedRuns.clear();
+    }
+
+    @Test
+    public void enqueue_ok() {
+        mailOutboxService.enqueue("tom.ohme@gmx.ch", "Subject", "Body");
+
+        ArgumentCaptor<OutboxMail> captor = ArgumentCaptor.forClass(OutboxMail.class);
+        verify(outboxMailRepositoryMock, times(1)).save(captor.capture());
+        OutboxMail mail = captor.getValue();
+        Assert.assertEquals("tom.ohme@gmx.ch", mail.getRecipient());
+        Assert.assertEquals(OutboxMail.Status.PENDING, mail.getStatus());
+        Assert.assertEquals(0, mail.getAttempts());
+        Assert.assertFalse(mail.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        Assert.assertEquals(1, recorder.events.size());
+    }
+
+    @Test
+    public void enqueueAll_ok() {
+        List<OutboxMail> mails = new ArrayList<>();
+        mails.add(new OutboxMail("tom.ohme@gmx.ch", "Subject", "Body", LocalDateTime.now()));
+        mails.add(new OutboxMail("yanick.schraner@gmail.com", "Subject", "Body", LocalDateTime.now()));
+
+        mailOutboxService.enqueueAll(mails);
+
+        verify(outboxMailRepositoryMock, times(1)).saveAll(mails);
+        Assert.assertEquals(2, recorder.events.get(0).getCount());
+    }
+
+    @Test
+    public void enqueueAll_empty() {
+        mailOutboxService.enqueueAll(new ArrayList<>());
+
+        verify(outboxMailRepositoryMock, never()).saveAll(any());
+        Assert.assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    public void closeRun_ok() {
+        mailOutboxService.closeRun("reminder:2018-06-14", 1200);
+
+        ArgumentCaptor<MailRun> captor = ArgumentCaptor.forClass(MailRun.class);
+        verify(mailRunRepositoryMock, times(1)).save(captor.capture());
+        Assert.assertEquals("reminder:2018-06-14", captor.getValue().getRun());
+        Assert.assertEquals(1200, captor.getValue().getMailCount());
+        Assert.assertNull(captor.getValue().getReportedAt());
+        Assert.assertEquals("reminder:2018-06-14", recorder.closedRuns.get(0).getRun());
+    }
+
+    @Test
+    public void closeRun_empty() {
+        mailOutboxService.closeRun("reminder:2018-06-14", 0);
+
+        verify(mailRunRepositoryMock, never()).save(any());
+        Assert.assertTrue(recorder.closedRuns.isEmpty());
+    }
+
+    @Test
+    public void failed_backsOffAndGivesUp() {
+        LocalDateTime now = LocalDateTime.of(2018, 6, 14, 8, 0);
+        OutboxMail mail = new OutboxMail("tom.ohme@gmx.ch", "Subject", "Body", now);
+
+        mail.failed("timeout", now, 3, 30);
+        Assert.assertEquals(now.plusSeconds(30), mail.getNextAttemptAt());
+        mail.failed("timeout", now, 3, 30);
+        Assert.assertEquals(now.plusSeconds(60), mail.getNextAttemptAt());
+        Assert.assertEquals(OutboxMail.Status.PENDING, mail.getStatus());
+        mail.failed("timeout", now, 3, 30);
+        Assert.assertEquals(OutboxMail.Status.FAILED, mail.getStatus());
+        Assert.assertEquals(3, mail.getAttempts());
+    }
+}
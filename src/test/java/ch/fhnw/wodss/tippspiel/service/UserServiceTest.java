@@ -1,21 +1,23 @@
 package ch.fhnw.wodss.tippspiel.service;
 
-import ch.fhnw.wodss.tippspiel.builder.BetBuilder;
 import ch.fhnw.wodss.tippspiel.builder.BetGroupBuilder;
 import ch.fhnw.wodss.tippspiel.builder.RestUserDTOBuilder;
 import ch.fhnw.wodss.tippspiel.builder.UserBuilder;
-import ch.fhnw.wodss.tippspiel.domain.Bet;
+import ch.fhnw.wodss.tippspiel.builder.UserRankingDTOBuilder;
 import ch.fhnw.wodss.tippspiel.domain.Role;
 import ch.fhnw.wodss.tippspiel.domain.User;
 import ch.fhnw.wodss.tippspiel.dto.RestUserDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserDTO;
 import ch.fhnw.wodss.tippspiel.dto.UserRankingDTO;
+import ch.fhnw.wodss.tippspiel.event.UserDeletedEvent;
+import ch.fhnw.wodss.tippspiel.event.UserSavedEvent;
 import ch.fhnw.wodss.tippspiel.exception.IllegalActionException;
 import ch.fhnw.wodss.tippspiel.exception.ResourceNotFoundException;
 import ch.fhnw.wodss.tippspiel.persistance.BetGroupRepository;
 import ch.fhnw.wodss.tippspiel.persistance.RoleRepository;
 import ch.fhnw.wodss.tippspiel.persistance.UserRepository;
 import ch.fhnw.wodss.tippspiel.security.Argon2PasswordEncoder;
+import ch.fhnw.wodss.tippspiel.security.UserPrincipal;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -23,7 +25,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.event.EventListener;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.ArrayList;
@@ -31,6 +35,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
@@ -58,9 +63,36 @@ public class UserServiceTest {
     @MockBean
     BetGroupRepository betGroupRepositoryMock;
 
+    @MockBean
+    LeaderboardService leaderboardServiceMock;
+
+    @MockBean
+    MailOutboxService mailOutboxServiceMock;
+
+    @Autowired
+    UserEventRecorder recorder;
+
+    @TestConfiguration
+    static class UserEventRecorder {
+        final List<UserSavedEvent> saved = new ArrayList<>();
+        final List<UserDeletedEvent> deleted = new ArrayList<>();
+
+        @EventListener
+        public void record(UserSavedEvent event) {
+            saved.add(event);
+        }
+
+        @EventListener
+        public void record(UserDeletedEvent event) {
+            deleted.add(event);
+        }
+    }
+
     @Before
     public void setup() {
-        Mockito.reset(userRepositoryMock, betServiceMock, betGroupServiceMock, argon2PasswordEncoderMock, roleRepositoryMock, betGroupRepositoryMock);
+        Mockito.reset(userRepositoryMock, betServiceMock, betGroupServiceMock, argon2PasswordEncoderMock, roleRepositoryMock, betGroupRepositoryMock, leaderboardServiceMock);
+        recorder.saved.clear();
+        recorder.deleted.clear();
     }
 
 
@@ -117,52 +149,29 @@ public class UserServiceTest {
 
     @Test
     public void getAllUsersForRanking_ok() {
-        List<User> users = new ArrayList<>();
-        List<Bet> bets = new ArrayList<>();
-        User user1 = new UserBuilder()
-                .withId(1L)
-                .withName("Yanick")
-                .withEmail("yanick.schraner@gmail.com")
-                .withPassword("password")
-                .withReminders(true)
-                .withDailyResults(true)
-                .withRole("USER")
-                .build();
-        Bet bet1 = new BetBuilder()
-                .withScore(3)
-                .withUser(user1)
-                .build();
-        Bet bet2 = new BetBuilder()
-                .withScore(7)
-                .withUser(user1)
-                .build();
-        bets.add(bet1);
-        bets.add(bet2);
-        user1.setBets(bets);
-        User user2 = new UserBuilder()
+        List<UserRankingDTO> ranking = new ArrayList<>();
+        UserRankingDTO user1 = new UserRankingDTOBuilder()
                 .withId(2L)
                 .withName("Tom")
-                .withEmail("tom.ohme@gmail.com")
-                .withPassword("password")
-                .withReminders(true)
-                .withDailyResults(true)
-                .withRole("USER")
+                .withScore(0)
+                .withExactHits(0)
                 .build();
-        users.add(user1);
-        users.add(user2);
+        UserRankingDTO user2 = new UserRankingDTOBuilder()
+                .withId(1L)
+                .withName("Yanick")
+                .withScore(10)
+                .withExactHits(1)
+                .build();
+        ranking.add(user1);
+        ranking.add(user2);
 
-        when(userRepositoryMock.findAll()).thenReturn(users);
+        when(leaderboardServiceMock.getAllAscending()).thenReturn(ranking);
 
         List<UserRankingDTO> result = userService.getAllUsersForRanking();
-        Assert.assertEquals(users.size(), result.size());
-        Assert.assertEquals(user2.getName(), result.get(0).getName());
-        Assert.assertEquals(user2.getId(), result.get(0).getId());
-        Assert.assertEquals((Integer) 0, result.get(0).getScore());
-        Assert.assertEquals(user1.getName(), result.get(1).getName());
-        Assert.assertEquals(user1.getId(), result.get(1).getId());
-        Assert.assertEquals((Integer) 10, result.get(1).getScore());
+        Assert.assertEquals(ranking, result);
 
-        verify(userRepositoryMock, times(1)).findAll();
+        verify(leaderboardServiceMock, times(1)).getAllAscending();
+        verify(userRepositoryMock, never()).findAll();
 
     }
 
@@ -264,6 +273,8 @@ public class UserServiceTest {
         verify(argon2PasswordEncoderMock, times(1)).encode("password");
         verify(roleRepositoryMock, times(1)).findById(1L);
         verify(userRepositoryMock, times(1)).save(any(User.class));
+        Assert.assertEquals(new UserSavedEvent(1L, "Yanick"), recorder.saved.get(0));
+        verify(leaderboardServiceMock, never()).putUser(any(), any());
 
     }
 
@@ -393,10 +404,12 @@ public class UserServiceTest {
         when(userRepositoryMock.existsById(1L)).thenReturn(true);
         when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
         when(betGroupRepositoryMock.save(any())).thenReturn(new BetGroupBuilder().build());
-        userService.deleteUser(1L, user);
+        userService.deleteUser(1L, UserPrincipal.of(user));
         verify(userRepositoryMock, times(1)).existsById(1L);
         verify(userRepositoryMock, times(1)).findById(1L);
         verify(userRepositoryMock, times(1)).deleteById(1L);
+        Assert.assertEquals(new UserDeletedEvent(1L), recorder.deleted.get(0));
+        verify(leaderboardServiceMock, never()).removeUser(any());
     }
 
     @Test(expected = IllegalActionException.class)
@@ -410,7 +423,7 @@ public class UserServiceTest {
                 .withDailyResults(false)
                 .withRole("USER")
                 .build();
-        userService.deleteUser(2L, user);
+        userService.deleteUser(2L, UserPrincipal.of(user));
     }
 
     @Test(expected = IllegalActionException.class)
@@ -426,7 +439,7 @@ public class UserServiceTest {
                 .build();
 
         when(userRepositoryMock.existsById(1L)).thenReturn(false);
-        userService.deleteUser(1L, user);
+        userService.deleteUser(1L, UserPrincipal.of(user));
         verify(userRepositoryMock, times(1)).existsById(1L);
     }
 
@@ -455,7 +468,7 @@ public class UserServiceTest {
         when(argon2PasswordEncoderMock.matches("passwordpassword", "hash")).thenReturn(true);
         when(userRepositoryMock.save(any(User.class))).thenReturn(user);
 
-        UserDTO result = userService.updateUser(user, restUserDTO);
+        UserDTO result = userService.updateUser(UserPrincipal.of(user), restUserDTO);
         Assert.assertEquals((long) user.getId(), result.getId());
         Assert.assertEquals(restUserDTO.isReminders(), result.getReminders());
         Assert.assertEquals(restUserDTO.isDailyResults(), result.getDailyResults());
@@ -464,6 +477,8 @@ public class UserServiceTest {
         verify(argon2PasswordEncoderMock, times(1)).encode("passwordpassword");
         verify(argon2PasswordEncoderMock, times(1)).matches("passwordpassword", "hash");
         verify(userRepositoryMock, times(1)).save(any(User.class));
+        Assert.assertEquals(new UserSavedEvent(1L, "Yanick"), recorder.saved.get(0));
+        verify(leaderboardServiceMock, never()).putUser(any(), any());
     }
 
     @Test(expected = IllegalActionException.class)
@@ -487,7 +502,7 @@ public class UserServiceTest {
 
         when(userRepositoryMock.findById(1L)).thenReturn(Optional.empty());
 
-        UserDTO result = userService.updateUser(user, restUserDTO);
+        UserDTO result = userService.updateUser(UserPrincipal.of(user), restUserDTO);
 
         verify(userRepositoryMock, times(1)).findById(1L);
         verify(argon2PasswordEncoderMock, times(0)).encode("passwordpassword");
@@ -516,7 +531,7 @@ public class UserServiceTest {
 
         when(userRepositoryMock.findById(1L)).thenReturn(Optional.ofNullable(user));
 
-        UserDTO result = userService.updateUser(user, restUserDTO);
+        UserDTO result = userService.updateUser(UserPrincipal.of(user), restUserDTO);
 
         verify(userRepositoryMock, times(1)).findById(1L);
         verify(argon2PasswordEncoderMock, times(0)).encode("passwordpassword");
@@ -548,7 +563,7 @@ public class UserServiceTest {
         when(argon2PasswordEncoderMock.encode("password2")).thenReturn("hash2");
         when(argon2PasswordEncoderMock.matches("hash", "hash2")).thenReturn(false);
 
-        UserDTO result = userService.updateUser(user, restUserDTO);
+        UserDTO result = userService.updateUser(UserPrincipal.of(user), restUserDTO);
 
         verify(userRepositoryMock, times(1)).findById(1L);
         verify(argon2PasswordEncoderMock, times(1)).encode("password");
@@ -581,7 +596,7 @@ public class UserServiceTest {
         when(argon2PasswordEncoderMock.matches("hash", "hash")).thenReturn(true);
         when(userRepositoryMock.save(any(User.class))).thenReturn(user);
 
-        UserDTO result = userService.updateUser(user, restUserDTO);
+        UserDTO result = userService.updateUser(UserPrincipal.of(user), restUserDTO);
 
         verify(userRepositoryMock, times(1)).findById(1L);
         verify(argon2PasswordEncoderMock, times(1)).encode("password");
@@ -606,6 +621,7 @@ public class UserServiceTest {
 
         verify(userRepositoryMock, times(1)).findUserByEmailEquals("yanick.schraner@gmmm.ch");
         verify(userRepositoryMock, times(1)).save(user);
+        verify(mailOutboxServiceMock, times(1)).enqueue(eq("yanick.schraner@gmmm.ch"), eq("WM 2018 Tippspiel - Passwortreset"), any());
     }
 
     @Test(expected = ResourceNotFoundException.class)
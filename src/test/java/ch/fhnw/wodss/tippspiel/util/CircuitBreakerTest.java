@@ -0,0 +1,104 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerTest {
+
+    private long now;
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setup() {
+        now = 0;
+        circuitBreaker = new CircuitBreaker(3, 60, 300, () -> now);
+    }
+
+    private void advanceSeconds(long seconds) {
+        now += TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            Assert.assertTrue(circuitBreaker.allowRequest());
+            circuitBreaker.recordFailure();
+        }
+    }
+
+    @Test
+    public void closed_allowsUntilThreshold() {
+        fail(2);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void closed_successResetsFailures() {
+        fail(2);
+        circuitBreaker.recordSuccess();
+        fail(2);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void open_refusesUntilOpenDurationPassed() {
+        fail(3);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(circuitBreaker.allowRequest());
+        advanceSeconds(59);
+        Assert.assertFalse(circuitBreaker.allowRequest());
+        advanceSeconds(1);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void halfOpen_allowsSingleTrialCall() {
+        fail(3);
+        advanceSeconds(60);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertFalse(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void halfOpen_successCloses() {
+        fail(3);
+        advanceSeconds(60);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordSuccess();
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void halfOpen_failureDoublesOpenDurationUpToMax() {
+        fail(3);
+        long[] expectedOpenSeconds = {120, 240, 300, 300};
+        advanceSeconds(60);
+        for (long openSeconds : expectedOpenSeconds) {
+            Assert.assertTrue(circuitBreaker.allowRequest());
+            circuitBreaker.recordFailure();
+            Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+            advanceSeconds(openSeconds - 1);
+            Assert.assertFalse(circuitBreaker.allowRequest());
+            advanceSeconds(1);
+        }
+        Assert.assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void halfOpen_successResetsOpenDuration() {
+        fail(3);
+        advanceSeconds(60);
+        fail(1);
+        advanceSeconds(120);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordSuccess();
+        fail(3);
+        advanceSeconds(60);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+    }
+}
@@ -0,0 +1,181 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the tree against a sorted list with the leaderboard's order: score and exact hits descending, ties
+ * broken by the user id.
+ */
+public class RankingTreeTest {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry entry) -> entry.score).reversed()
+            .thenComparing(Comparator.comparingInt((Entry entry) -> entry.exactHits).reversed())
+            .thenComparingLong(entry -> entry.userId);
+
+    private RankingTree<Entry> tree;
+    private List<Entry> oracle;
+
+    @Before
+    public void setup() {
+        tree = new RankingTree<>(ORDER);
+        oracle = new ArrayList<>();
+    }
+
+    @Test
+    public void countBefore_tiesShareRank() {
+        add(new Entry(1L, "Tom", 20, 2));
+        add(new Entry(2L, "Ben", 15, 1));
+        add(new Entry(3L, "Anna", 20, 2));
+        add(new Entry(4L, "Lea", 15, 1));
+        add(new Entry(5L, "Max", 15, 0));
+        add(new Entry(6L, "Eva", 20, 1));
+        assertMatchesOracle();
+
+        Assert.assertEquals(1, rankOf(new Entry(1L, "Tom", 20, 2)));
+        Assert.assertEquals(1, rankOf(new Entry(3L, "Anna", 20, 2)));
+        Assert.assertEquals(3, rankOf(new Entry(6L, "Eva", 20, 1)));
+        Assert.assertEquals(4, rankOf(new Entry(2L, "Ben", 15, 1)));
+        Assert.assertEquals(4, rankOf(new Entry(4L, "Lea", 15, 1)));
+        Assert.assertEquals(6, rankOf(new Entry(5L, "Max", 15, 0)));
+        // an element that is not in the tree
+        Assert.assertEquals(4, rankOf(new Entry(7L, "Kim", 18, 0)));
+        Assert.assertEquals(6, tree.countBefore(new Entry(7L, "Kim", 0, 0)));
+    }
+
+    @Test
+    public void range_pagesAcrossTies() {
+        for (long id = 1; id <= 10; id++) {
+            add(new Entry(id, "User" + id, (int) (id % 3) * 5, 0));
+        }
+        List<Entry> pages = new ArrayList<>();
+        for (int from = 0; from < tree.size(); from += 3) {
+            List<Entry> page = tree.range(from, from + 3);
+            Assert.assertEquals(oracle.subList(from, Math.min(from + 3, oracle.size())), page);
+            pages.addAll(page);
+        }
+        Assert.assertEquals(oracle, pages);
+        Assert.assertEquals(oracle.subList(0, 2), tree.range(-3, 2));
+        Assert.assertEquals(oracle.subList(8, 10), tree.range(8, 20));
+        Assert.assertTrue(tree.range(10, 13).isEmpty());
+        Assert.assertTrue(tree.range(5, 5).isEmpty());
+    }
+
+    @Test
+    public void remove_ok() {
+        for (long id = 1; id <= 8; id++) {
+            add(new Entry(id, "User" + id, (int) (id % 2) * 10, 0));
+        }
+        remove(new Entry(3L, "User3", 10, 0));
+        remove(new Entry(8L, "User8", 0, 0));
+        assertMatchesOracle();
+        Assert.assertFalse(tree.remove(new Entry(3L, "User3", 10, 0)));
+        // same score but another user
+        Assert.assertFalse(tree.remove(new Entry(9L, "User9", 10, 0)));
+        Assert.assertEquals(6, tree.size());
+        for (Entry entry : new ArrayList<>(oracle)) {
+            remove(entry);
+            assertMatchesOracle();
+        }
+        Assert.assertEquals(0, tree.size());
+    }
+
+    @Test
+    public void reinsert_renamedAndRescored() {
+        for (long id = 1; id <= 5; id++) {
+            add(new Entry(id, "User" + id, 10, 1));
+        }
+        // renamed, same score: stays at the same position
+        remove(new Entry(2L, "User2", 10, 1));
+        add(new Entry(2L, "Tom", 10, 1));
+        assertMatchesOracle();
+        Assert.assertEquals("Tom", tree.get(1).name);
+
+        // scored: moves to the top
+        remove(new Entry(4L, "User4", 10, 1));
+        add(new Entry(4L, "User4", 13, 1));
+        assertMatchesOracle();
+        Assert.assertEquals((Long) 4L, tree.get(0).userId);
+        Assert.assertEquals(2, rankOf(new Entry(1L, "User1", 10, 1)));
+        Assert.assertEquals(5, tree.size());
+    }
+
+    @Test
+    public void randomOperations() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            Entry entry = new Entry((long) random.nextInt(200), "User", random.nextInt(10), random.nextInt(3));
+            Entry existing = oracle.stream().filter(e -> e.userId.equals(entry.userId)).findFirst().orElse(null);
+            if (existing != null) remove(existing);
+            if (random.nextInt(4) > 0) add(entry);
+
+            Assert.assertEquals(oracle.size(), tree.size());
+            Assert.assertEquals(oracle.stream().filter(e -> ORDER.compare(e, entry) < 0).count(),
+                    tree.countBefore(entry));
+            if (!oracle.isEmpty()) {
+                int index = random.nextInt(oracle.size());
+                Assert.assertSame(oracle.get(index), tree.get(index));
+                int to = index + random.nextInt(20);
+                Assert.assertEquals(oracle.subList(index, Math.min(to, oracle.size())), tree.range(index, to));
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfBounds() {
+        add(new Entry(1L, "Tom", 10, 1));
+        tree.get(1);
+    }
+
+    private void add(Entry entry) {
+        tree.add(entry);
+        oracle.add(entry);
+        oracle.sort(ORDER);
+    }
+
+    private void remove(Entry entry) {
+        Assert.assertTrue(tree.remove(entry));
+        oracle.removeIf(e -> ORDER.compare(e, entry) == 0);
+    }
+
+    /**
+     * Rank as the leaderboard computes it: users with the same score and exact hits share a rank.
+     */
+    private int rankOf(Entry entry) {
+        int rank = tree.countBefore(new Entry(Long.MIN_VALUE, null, entry.score, entry.exactHits)) + 1;
+        long better = oracle.stream()
+                .filter(e -> e.score > entry.score || e.score == entry.score && e.exactHits > entry.exactHits)
+                .count();
+        Assert.assertEquals(better + 1, rank);
+        return rank;
+    }
+
+    private void assertMatchesOracle() {
+        Assert.assertEquals(oracle.size(), tree.size());
+        Assert.assertEquals(oracle, tree.range(0, tree.size()));
+        for (int i = 0; i < oracle.size(); i++) {
+            Assert.assertSame(oracle.get(i), tree.get(i));
+            Assert.assertEquals(i, tree.countBefore(oracle.get(i)));
+        }
+    }
+
+    private static class Entry {
+        private final Long userId;
+        private final String name;
+        private final int score;
+        private final int exactHits;
+
+        private Entry(Long userId, String name, int score, int exactHits) {
+            this.userId = userId;
+            this.name = name;
+            this.score = score;
+            this.exactHits = exactHits;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ch.fhnw.wodss.tippspiel.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SlidingWindowLimiterTest {
+
+    private SlidingWindowLimiter limiter;
+
+    @Before
+    public void setup() {
+        limiter = new SlidingWindowLimiter(3, 1000);
+    }
+
+    @Test
+    public void tryAcquire_admitsUpToLimit() {
+        Assert.assertEquals(0, limiter.tryAcquire("tom", 0));
+        Assert.assertEquals(0, limiter.tryAcquire("tom", 100));
+        Assert.assertEquals(0, limiter.tryAcquire("tom", 200));
+        Assert.assertEquals(700, limiter.tryAcquire("tom", 300));
+    }
+
+    @Test
+    public void tryAcquire_rejectionIsNotRecorded() {
+        fill("tom", 0);
+        limiter.tryAcquire("tom", 500);
+        limiter.tryAcquire("tom", 900);
+        Assert.assertEquals(0, limiter.tryAcquire("tom", 1000));
+    }
+
+    @Test
+    public void tryAcquire_windowSlides() {
+        limiter.tryAcquire("tom", 0);
+        limiter.tryAcquire("tom", 400);
+        limiter.tryAcquire("tom", 800);
+        Assert.assertEquals(0, limiter.tryAcquire("tom", 1000));
+        Assert.assertEquals(400, limiter.tryAcquire("tom", 1000));
+    }
+
+    @Test
+    public void tryAcquire_keysAreIndependent() {
+        fill("tom", 0);
+        Assert.assertEquals(0, limiter.tryAcquire("ben", 0));
+    }
+
+    @Test
+    public void release_givesBackLatestEvent() {
+        fill("tom", 0);
+        limiter.release("tom");
+        Assert.assertEquals(0, limiter.tryAcquire("tom", 10));
+        Assert.assertTrue(limiter.tryAcquire("tom", 20) > 0);
+    }
+
+    @Test
+    public void release_unknownKey() {
+        limiter.release("tom");
+        Assert.assertEquals(0, limiter.tryAcquire("tom", 0));
+    }
+
+    @Test
+    public void reset_clearsKey() {
+        fill("tom", 0);
+        limiter.reset("tom");
+        fill("tom", 10);
+    }
+
+    @Test
+    public void purge_keepsEventsInWindow() {
+        fill("tom", 0);
+        limiter.tryAcquire("ben", 0);
+        limiter.purge(500);
+        Assert.assertTrue(limiter.tryAcquire("tom", 500) > 0);
+        limiter.purge(1000);
+        fill("tom", 1000);
+    }
+
+    private void fill(String key, long now) {
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, limiter.tryAcquire(key, now));
+        }
+    }
+}